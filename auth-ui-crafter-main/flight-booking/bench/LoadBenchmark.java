@@ -0,0 +1,110 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadBenchmark - closed-loop HTTP load against a running SkyBook backend
+ * Each client sends its next request as soon as the previous one answers,
+ * so throughput is bounded by the server, not by the benchmark's threads
+ * (requests are sent asynchronously, a few threads drive all clients).
+ *
+ * Run it once per threading mode and compare:
+ *   java -jar target/flight-booking-1.0.0.jar --spring.threads.virtual.enabled=false
+ *   java bench/LoadBenchmark.java http://localhost:8080 1000 30 /api/flights,/api/flights/search?departure=Delhi
+ *   java -jar target/flight-booking-1.0.0.jar --spring.threads.virtual.enabled=true
+ *   java bench/LoadBenchmark.java http://localhost:8080 1000 30 /api/flights,/api/flights/search?departure=Delhi
+ *
+ * Arguments: baseUrl [clients=1000] [seconds=30] [paths=/api/flights] [warmupSeconds=5]
+ */
+public class LoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String[] paths = (args.length > 3 ? args[3] : "/api/flights").split(",");
+        int warmupSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path.trim()))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build());
+        }
+
+        System.out.println("Warming up for " + warmupSeconds + "s with " + clients + " clients...");
+        run(client, requests, clients, warmupSeconds);
+        System.out.println("Measuring for " + seconds + "s...");
+        Result result = run(client, requests, clients, seconds);
+        result.print(clients, seconds);
+    }
+
+    private static Result run(HttpClient client, List<HttpRequest> requests, int clients, int seconds) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Result result = new Result();
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            loops.add(loop(client, requests, i, deadline, result));
+        }
+        CompletableFuture.allOf(loops.toArray(new CompletableFuture[0])).join();
+        return result;
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, List<HttpRequest> requests, int next,
+                                                long deadline, Result result) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = requests.get(next % requests.size());
+        long started = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                long micros = (System.nanoTime() - started) / 1_000;
+                if (error == null && response.statusCode() < 400) {
+                    result.latenciesMicros.add(micros);
+                } else {
+                    result.errors.incrementAndGet();
+                }
+                return null;
+            })
+            .thenCompose(ignored -> loop(client, requests, next + 1, deadline, result));
+    }
+
+    private static class Result {
+        private final ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        void print(int clients, int seconds) {
+            long[] sorted = latenciesMicros.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            System.out.println("clients        " + clients);
+            System.out.println("requests       " + sorted.length + " ok, " + errors.get() + " failed");
+            System.out.printf("throughput     %.1f req/s%n", sorted.length / (double) seconds);
+            if (sorted.length == 0) {
+                return;
+            }
+            System.out.printf("latency p50    %.1f ms%n", percentile(sorted, 0.50));
+            System.out.printf("latency p95    %.1f ms%n", percentile(sorted, 0.95));
+            System.out.printf("latency p99    %.1f ms%n", percentile(sorted, 0.99));
+            System.out.printf("latency max    %.1f ms%n", sorted[sorted.length - 1] / 1000.0);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1000.0;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.skybook.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DataInitializer - Loads sample data on startup
@@ -24,9 +26,11 @@ public class DataInitializer implements CommandLineRunner {
         
         // Only create data if it doesn't exist
         if (flightRepository.findAll().isEmpty()) {
-            // Create sample flights using polymorphism
-            createDomesticFlights();
-            createInternationalFlights();
+            // Create sample flights using polymorphism, written in one batch
+            List<Flight> flights = new ArrayList<>();
+            createDomesticFlights(flights);
+            createInternationalFlights(flights);
+            flightRepository.saveAll(flights);
         } else {
             System.out.println("✅ Flights already exist, skipping initialization");
         }
@@ -41,7 +45,7 @@ public class DataInitializer implements CommandLineRunner {
         System.out.println("\n========== Sample Data Loaded Successfully ==========\n");
     }
     
-    private void createDomesticFlights() {
+    private void createDomesticFlights(List<Flight> flights) {
         DomesticFlight flight1 = new DomesticFlight();
         flight1.setFlightNumber("AI101");
         flight1.setAirline("Air India");
@@ -55,7 +59,7 @@ public class DataInitializer implements CommandLineRunner {
         flight1.setImage("https://images.unsplash.com/photo-1436491865332-7a61a109cc05?w=400");
         flight1.setStateTaxPercentage(5.0);
         flight1.setIncludesMeal(true);
-        flightRepository.save(flight1);
+        flights.add(flight1);
         
         DomesticFlight flight2 = new DomesticFlight();
         flight2.setFlightNumber("6E202");
@@ -70,7 +74,7 @@ public class DataInitializer implements CommandLineRunner {
         flight2.setImage("https://images.unsplash.com/photo-1464037866556-6812c9d1c72e?w=400");
         flight2.setStateTaxPercentage(5.0);
         flight2.setIncludesMeal(false);
-        flightRepository.save(flight2);
+        flights.add(flight2);
         
         DomesticFlight flight3 = new DomesticFlight();
         flight3.setFlightNumber("SG303");
@@ -85,7 +89,7 @@ public class DataInitializer implements CommandLineRunner {
         flight3.setImage("https://images.unsplash.com/photo-1520109344942-de335cbddc98?w=400");
         flight3.setStateTaxPercentage(5.0);
         flight3.setIncludesMeal(true);
-        flightRepository.save(flight3);
+        flights.add(flight3);
         
         DomesticFlight flight4 = new DomesticFlight();
         flight4.setFlightNumber("UK404");
@@ -100,12 +104,12 @@ public class DataInitializer implements CommandLineRunner {
         flight4.setImage("https://images.unsplash.com/photo-1583427920852-e069a2b84e8a?w=400");
         flight4.setStateTaxPercentage(5.0);
         flight4.setIncludesMeal(false);
-        flightRepository.save(flight4);
+        flights.add(flight4);
         
         System.out.println("✅ Created 4 Domestic Flights");
     }
     
-    private void createInternationalFlights() {
+    private void createInternationalFlights(List<Flight> flights) {
         InternationalFlight flight1 = new InternationalFlight();
         flight1.setFlightNumber("AI505");
         flight1.setAirline("Air India");
@@ -121,7 +125,7 @@ public class DataInitializer implements CommandLineRunner {
         flight1.setVisaRequired(true);
         flight1.setBaggageAllowanceKg(30);
         flight1.setDestinationCountry("UAE");
-        flightRepository.save(flight1);
+        flights.add(flight1);
         
         InternationalFlight flight2 = new InternationalFlight();
         flight2.setFlightNumber("EK606");
@@ -138,7 +142,7 @@ public class DataInitializer implements CommandLineRunner {
         flight2.setVisaRequired(false);
         flight2.setBaggageAllowanceKg(35);
         flight2.setDestinationCountry("Singapore");
-        flightRepository.save(flight2);
+        flights.add(flight2);
         
         System.out.println("✅ Created 2 International Flights");
     }
@@ -154,7 +158,6 @@ public class DataInitializer implements CommandLineRunner {
         passenger.setPhone("9876543210");
         passenger.setLocation("Delhi");
         passenger.setLoyaltyPoints(500);
-        userRepository.save(passenger);
         
         // Create a sample admin
         Admin admin = new Admin();
@@ -166,7 +169,7 @@ public class DataInitializer implements CommandLineRunner {
         admin.setAdminLevel(2);
         admin.setCanManageFlights(true);
         admin.setCanManageUsers(true);
-        userRepository.save(admin);
+        userRepository.saveAll(List.of(passenger, admin));
         
         System.out.println("✅ Created Sample Users (Passenger & Admin)");
     }
@@ -0,0 +1,45 @@
+package com.skybook.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RateLimitProperties - token bucket limits per endpoint
+ * e.g. skybook.ratelimit.limits.login.capacity=10
+ *      skybook.ratelimit.limits.login.refill-per-second=1
+ */
+@Component
+@ConfigurationProperties(prefix = "skybook.ratelimit")
+@Data
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound on tracked clients/emails across all limits
+    private int maxKeys = 100_000;
+    
+    // Only enable behind a proxy that sets X-Forwarded-For itself
+    private boolean trustForwardedFor = false;
+    
+    private Map<String, Limit> limits = new HashMap<>(Map.of(
+        "login", new Limit(10, 1.0),
+        "login-email", new Limit(5, 0.1),
+        "register", new Limit(5, 0.2),
+        "booking", new Limit(10, 0.5),
+        "booking-email", new Limit(5, 0.2)
+    ));
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
@@ -0,0 +1,87 @@
+package com.skybook.config;
+
+import com.skybook.service.StorageAccess;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * StorageAccessFilter - per-request storage budget for /api requests
+ * Binds a StorageAccess.Usage to the request and, once the request is done
+ * (after the async dispatch for CompletableFuture endpoints), logs it with
+ * its busiest call sites if it read or committed more than the budget.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageAccessFilter extends OncePerRequestFilter {
+
+    public static final String USAGE_ATTRIBUTE = StorageAccessFilter.class.getName() + ".usage";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${skybook.storage-budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${skybook.storage-budget.max-reads:20}")
+    private long maxReads;
+
+    @Value("${skybook.storage-budget.max-read-bytes:10485760}")
+    private long maxReadBytes;
+
+    @Value("${skybook.storage-budget.max-commits:5}")
+    private long maxCommits;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Run again when an async result is dispatched, to report the finished request
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StorageAccess.Usage usage = (StorageAccess.Usage) request.getAttribute(USAGE_ATTRIBUTE);
+        if (usage == null) {
+            usage = new StorageAccess.Usage();
+            request.setAttribute(USAGE_ATTRIBUTE, usage);
+        }
+        StorageAccess.Usage previous = StorageAccess.bind(usage);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            StorageAccess.bind(previous);
+            if (!request.isAsyncStarted()) {
+                report(request, usage);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, StorageAccess.Usage usage) {
+        DistributionSummary.builder("skybook.request.storage.reads")
+            .description("Storage file reads per API request")
+            .register(meterRegistry)
+            .record(usage.getReads());
+        if (usage.getReads() <= maxReads && usage.getReadBytes() <= maxReadBytes && usage.getCommits() <= maxCommits) {
+            return;
+        }
+        System.err.println("❌ Storage budget exceeded: " + request.getMethod() + " " + request.getRequestURI()
+            + " - " + usage.getReads() + " reads (budget " + maxReads + "), "
+            + usage.getRecords() + " records, " + usage.getReadBytes() + " bytes parsed (budget " + maxReadBytes + "), "
+            + usage.getCommits() + " commits (budget " + maxCommits + ") in " + usage.getElapsedMillis() + "ms"
+            + "; top call sites: " + usage.topCallSites(5));
+    }
+}
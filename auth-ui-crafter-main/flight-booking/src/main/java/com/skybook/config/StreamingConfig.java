@@ -0,0 +1,78 @@
+package com.skybook.config;
+
+import com.skybook.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * StreamingConfig - a dedicated executor for MVC async writes
+ * Spring MVC writes each element of a Flux (and runs StreamingResponseBody
+ * exports) on its async executor, and a write to a slow client blocks that
+ * thread until the socket drains. By default this is the shared 8-thread
+ * applicationTaskExecutor, so a few slow clients could stall every stream.
+ * Streams get their own pool instead: virtual threads when
+ * spring.threads.virtual.enabled (capped at max-concurrent), otherwise a
+ * bounded platform pool. The services also end a Flux that stalls for
+ * idle-timeout-ms, so a stuck client gives its thread back.
+ */
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+
+    @Value("${skybook.streaming.threads:32}")
+    private int threads;
+
+    @Value("${skybook.streaming.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${skybook.streaming.max-concurrent:1000}")
+    private int maxConcurrent;
+
+    @Value("${skybook.streaming.request-timeout-ms:600000}")
+    private long requestTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolTaskExecutor platformExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(requestTimeoutMs);
+    }
+
+    private AsyncTaskExecutor streamingExecutor() {
+        Optional<ThreadFactory> virtual = virtualThreads ? VirtualThreads.factory("mvc-stream-") : Optional.empty();
+        if (virtual.isPresent()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(virtual.get());
+            executor.setConcurrencyLimit(maxConcurrent);
+            System.out.println("✅ Streaming writes on virtual threads (max " + maxConcurrent + ")");
+            return executor;
+        }
+        platformExecutor = new ThreadPoolTaskExecutor();
+        platformExecutor.setThreadNamePrefix("mvc-stream-");
+        platformExecutor.setCorePoolSize(threads);
+        platformExecutor.setMaxPoolSize(threads);
+        platformExecutor.setQueueCapacity(queueCapacity);
+        platformExecutor.setAllowCoreThreadTimeOut(true);
+        platformExecutor.setDaemon(true);
+        platformExecutor.initialize();
+        return platformExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (platformExecutor != null) {
+            platformExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.skybook.controller;
+
+import com.skybook.dto.ChangeRecord;
+import com.skybook.service.BookingAnalyticsService;
+import com.skybook.service.BookingTieringService;
+import com.skybook.service.ChangeLog;
+import com.skybook.service.FlightImportService;
+import com.skybook.service.FlightRecorderService;
+import com.skybook.service.SessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * AdminController - operational endpoints, admin sessions only
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+@RequiredArgsConstructor
+public class AdminController {
+    
+    private final SessionService sessionService;
+    private final FlightImportService flightImportService;
+    private final BookingAnalyticsService bookingAnalytics;
+    private final BookingTieringService bookingTiering;
+    private final FlightRecorderService flightRecorder;
+    private final ChangeLog changeLog;
+    
+    /**
+     * POST /api/admin/flights/import?format=csv|ndjson
+     * Bulk import a flight schedule from the raw request body. The format
+     * defaults from the Content-Type (anything mentioning json is NDJSON).
+     */
+    @PostMapping("/flights/import")
+    public ResponseEntity<Map<String, Object>> importFlights(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        
+        String requested = format != null ? format : String.valueOf(request.getContentType());
+        FlightImportService.Format importFormat = requested.toLowerCase().contains("json")
+            ? FlightImportService.Format.NDJSON
+            : FlightImportService.Format.CSV;
+        try {
+            Map<String, Object> report = flightImportService.importFlights(request.getInputStream(), importFormat);
+            return Boolean.TRUE.equals(report.get("success"))
+                ? ResponseEntity.ok(report)
+                : ResponseEntity.badRequest().body(report);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Could not read upload: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * GET /api/admin/analytics
+     * Revenue per route and airline, load factor per flight, bookings per status
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<Map<String, Object>> getAnalytics(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(bookingAnalytics.getSummary());
+    }
+    
+    /**
+     * POST /api/admin/bookings/archive
+     * Move eligible inactive bookings to the archive now instead of waiting for the schedule
+     */
+    @PostMapping("/bookings/archive")
+    public ResponseEntity<Map<String, Object>> archiveBookings(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(bookingTiering.archiveNow());
+    }
+    
+    /**
+     * GET /api/admin/jfr
+     * State of the Flight Recorder recording
+     */
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, Object>> getRecording(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(flightRecorder.status());
+    }
+    
+    /**
+     * POST /api/admin/jfr/start?settings=default|profile
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<Map<String, Object>> startRecording(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(defaultValue = "default") String settings) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        try {
+            return ResponseEntity.ok(flightRecorder.start(settings));
+        } catch (IllegalArgumentException | IOException | ParseException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Could not start recording: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * POST /api/admin/jfr/stop
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<Map<String, Object>> stopRecording(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(flightRecorder.stop());
+    }
+    
+    /**
+     * GET /api/admin/jfr/dump
+     * Download the recording so far as a .jfr file (open it in JDK Mission Control)
+     */
+    @GetMapping("/jfr/dump")
+    public ResponseEntity<?> dumpRecording(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        Path file;
+        try {
+            file = flightRecorder.dump();
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Could not dump recording: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+        if (file == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "No recording to dump");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.getFileName())
+            .body(body);
+    }
+    
+    /**
+     * GET /api/admin/changes?after=0&limit=500&waitMs=0
+     * Entity changes after a sequence, oldest first. Pass the returned
+     * lastSequence as the next after; with waitMs the call long-polls until
+     * something newer arrives. 410 Gone if after is older than the retained log.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Map<String, Object>> getChanges(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "0") long waitMs) throws InterruptedException {
+        HttpStatus denied = checkAdmin(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        List<ChangeRecord> changes = changeLog.await(Math.max(0, after), Math.max(1, Math.min(limit, 5000)), waitMs);
+        Map<String, Object> response = new HashMap<>();
+        response.put("changes", changes);
+        response.put("lastSequence", changes.isEmpty() ? Math.max(0, after) : changes.get(changes.size() - 1).getSequence());
+        response.put("headSequence", changeLog.getLastSequence());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * @return the status to refuse with, or null for an admin session
+     */
+    private HttpStatus checkAdmin(String authorization) {
+        Optional<SessionService.Session> session = sessionService.resolveAuthorization(authorization);
+        if (session.isEmpty()) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return "ADMIN".equals(session.get().getRole()) ? null : HttpStatus.FORBIDDEN;
+    }
+}
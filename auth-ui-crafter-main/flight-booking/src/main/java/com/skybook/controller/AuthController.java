@@ -3,8 +3,11 @@ package com.skybook.controller;
 import com.skybook.dto.LoginRequest;
 import com.skybook.dto.RegisterRequest;
 import com.skybook.service.AuthService;
+import com.skybook.service.RateLimiterService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -19,13 +22,16 @@ import java.util.Map;
 public class AuthController {
     
     private final AuthService authService;
+    private final RateLimiterService rateLimiter;
     
     /**
      * POST /api/auth/register
      * Register a new user
      */
     @PostMapping("/register")
-    public ResponseEntity<Map<String, Object>> register(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<Map<String, Object>> register(@Valid @RequestBody RegisterRequest request,
+                                                        HttpServletRequest httpRequest) {
+        rateLimiter.check("register", rateLimiter.clientKey(httpRequest));
         Map<String, Object> response = authService.register(request);
         return ResponseEntity.ok(response);
     }
@@ -35,20 +41,21 @@ public class AuthController {
      * Login user
      */
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request,
+                                                     HttpServletRequest httpRequest) {
+        rateLimiter.check("login", rateLimiter.clientKey(httpRequest));
+        rateLimiter.check("login-email", request.getEmail().toLowerCase());
         Map<String, Object> response = authService.login(request);
         return ResponseEntity.ok(response);
     }
     
     /**
      * POST /api/auth/logout
-     * Logout user (simple implementation)
+     * Invalidate the session token sent as "Authorization: Bearer <token>"
      */
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, Object>> logout() {
-        return ResponseEntity.ok(Map.of(
-            "success", true,
-            "message", "Logged out successfully"
-        ));
+    public ResponseEntity<Map<String, Object>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return ResponseEntity.ok(authService.logout(authorization));
     }
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package com.skybook.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skybook.dto.BookingRequest;
+import com.skybook.dto.GroupBookingRequest;
 import com.skybook.model.Booking;
 import com.skybook.service.BookingService;
+import com.skybook.service.IdempotencyService;
 import com.skybook.service.PdfService;
+import com.skybook.service.RateLimiterService;
+import com.skybook.service.SessionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
@@ -11,8 +17,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * BookingController - REST API endpoints for bookings
@@ -25,24 +34,108 @@ public class BookingController {
     
     private final BookingService bookingService;
     private final PdfService pdfService;
+    private final SessionService sessionService;
+    private final RateLimiterService rateLimiter;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
     
     /**
      * POST /api/bookings
-     * Create a new booking
+     * Create a new booking; retries carrying the same Idempotency-Key get the original result
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createBooking(@Valid @RequestBody BookingRequest request) {
-        Map<String, Object> response = bookingService.createBooking(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createBooking(
+            @Valid @RequestBody BookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        rateLimiter.check("booking", rateLimiter.clientKey(httpRequest));
+        rateLimiter.check("booking-email", request.getEmail().toLowerCase());
+        
+        // Async - the servlet thread is released while payment is in flight
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return bookingService.createBooking(request).thenApply(ResponseEntity::ok);
+        }
+        // Keys are scoped per customer; the fingerprint (SHA-256 of the canonical body) catches key reuse
+        String key = request.getEmail().toLowerCase() + ":" + idempotencyKey;
+        String fingerprint = idempotencyService.fingerprint(request);
+        return idempotencyService.execute(key, fingerprint, () -> bookingService.createBooking(request))
+            .thenApply(ResponseEntity::ok);
+    }
+    
+    /**
+     * POST /api/bookings/group
+     * Book several passengers on one flight with a single payment (all seats or none)
+     */
+    @PostMapping("/group")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createGroupBooking(
+            @Valid @RequestBody GroupBookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        String leadEmail = request.getPassengers().get(0).getEmail().toLowerCase();
+        rateLimiter.check("booking", rateLimiter.clientKey(httpRequest));
+        rateLimiter.check("booking-email", leadEmail);
+        
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return bookingService.createGroupBooking(request).thenApply(ResponseEntity::ok);
+        }
+        String key = leadEmail + ":group:" + idempotencyKey;
+        String fingerprint = idempotencyService.fingerprint(request);
+        return idempotencyService.execute(key, fingerprint, () -> bookingService.createGroupBooking(request))
+            .thenApply(ResponseEntity::ok);
     }
     
     /**
      * GET /api/bookings
-     * Get user bookings by email
+     * Get the caller's bookings (session token, or legacy ?email=).
+     * With limit and/or cursor, returns one page {items, nextCursor}.
      */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getUserBookings(@RequestParam String email) {
-        return ResponseEntity.ok(bookingService.getUserBookings(email));
+    public ResponseEntity<?> getUserBookings(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (limit != null || cursor != null) {
+            int pageSize = limit != null ? limit : BookingService.MAX_PAGE_SIZE;
+            return ResponseEntity.ok(bookingService.getUserBookingsPage(caller.get(), cursor, pageSize));
+        }
+        return ResponseEntity.ok(bookingService.getUserBookings(caller.get()));
+    }
+    
+    /**
+     * GET /api/bookings/export
+     * All of the caller's bookings, streamed as NDJSON
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email) {
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return NdjsonResponses.stream(objectMapper, "bookings.ndjson",
+            sink -> bookingService.exportUserBookings(caller.get(), sink));
+    }
+    
+    /**
+     * GET /api/bookings/stream
+     * All of the caller's bookings as a Flux (NDJSON or server-sent events),
+     * read in batches only as fast as the client consumes them
+     */
+    @GetMapping(value = "/stream", produces = {NdjsonResponses.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<Map<String, Object>>> streamUserBookings(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email) {
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(bookingService.streamUserBookings(caller.get()));
     }
     
     /**
@@ -1,9 +1,18 @@
 package com.skybook.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skybook.service.FlightService;
+import com.skybook.service.SeatAvailabilityFeed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 
@@ -17,22 +26,73 @@ import java.util.Map;
 public class FlightController {
     
     private final FlightService flightService;
+    private final SeatAvailabilityFeed seatAvailabilityFeed;
+    private final ObjectMapper objectMapper;
+    
+    private static final int MAX_CALENDAR_DAYS = 90;
     
     /**
      * GET /api/flights
-     * Get all flights or search flights
+     * Get all flights or search flights. With limit and/or cursor, returns one
+     * page {items, nextCursor} instead of the whole list.
      */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getFlights(
+    public ResponseEntity<?> getFlights(
             @RequestParam(required = false) String from,
-            @RequestParam(required = false) String to) {
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         
+        if (limit != null || cursor != null) {
+            int pageSize = limit != null ? limit : FlightService.MAX_PAGE_SIZE;
+            return ResponseEntity.ok(flightService.getFlightsPage(from, to, cursor, pageSize));
+        }
         if (from != null || to != null) {
             return ResponseEntity.ok(flightService.searchFlights(from, to));
         }
         return ResponseEntity.ok(flightService.getAvailableFlights());
     }
     
+    /**
+     * GET /api/flights/export
+     * The same listing as GET /api/flights, streamed as NDJSON
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFlights(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return NdjsonResponses.stream(objectMapper, "flights.ndjson",
+            sink -> flightService.exportFlights(from, to, sink));
+    }
+    
+    /**
+     * GET /api/flights/stream
+     * The same listing as GET /api/flights as a Flux: NDJSON, or server-sent
+     * events with Accept: text/event-stream. Flights are parsed as the client
+     * reads them; writes run on the streaming executor (see StreamingConfig),
+     * so a slow client holds one of its threads, never a request thread.
+     */
+    @GetMapping(value = "/stream", produces = {NdjsonResponses.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Map<String, Object>> streamFlights(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return flightService.streamFlights(from, to);
+    }
+    
+    /**
+     * GET /api/flights/seats/stream?flightIds=1,2,3
+     * Server-sent "seats" events {flightId, availableSeats} - the current
+     * counts first, then every change - instead of polling GET /api/flights/{id}
+     */
+    @GetMapping(value = "/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeatAvailability(@RequestParam List<Long> flightIds) {
+        try {
+            return ResponseEntity.ok(seatAvailabilityFeed.subscribe(flightIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * GET /api/flights/{id}
      * Get flight by ID
@@ -55,4 +115,23 @@ public class FlightController {
         
         return ResponseEntity.ok(flightService.searchFlights(departure, arrival));
     }
+    
+    /**
+     * GET /api/flights/fare-calendar
+     * Lowest fare per route per day (defaults to the next 7 days)
+     */
+    @GetMapping("/fare-calendar")
+    public ResponseEntity<List<Map<String, Object>>> getFareCalendar(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        
+        LocalDate start = startDate != null ? startDate : LocalDate.now();
+        LocalDate end = endDate != null ? endDate : start.plusDays(6);
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_CALENDAR_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(flightService.getFareCalendar(from, to, start, end));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.skybook.controller;
+
+import com.skybook.config.StorageAccessFilter;
+import com.skybook.service.StorageAccess;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * StorageAccessHeaderAdvice - X-Storage-Access response header (dev profile)
+ * Added just before the body is written, so it covers all the storage work
+ * of the request. Streaming exports start writing first and don't get it.
+ */
+@ControllerAdvice
+public class StorageAccessHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String HEADER = "X-Storage-Access";
+
+    @Value("${skybook.storage-budget.response-header:false}")
+    private boolean responseHeader;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return responseHeader;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            Object usage = servletRequest.getServletRequest().getAttribute(StorageAccessFilter.USAGE_ATTRIBUTE);
+            if (usage instanceof StorageAccess.Usage requestUsage) {
+                response.getHeaders().set(HEADER, requestUsage.toHeaderValue());
+            }
+        }
+        return body;
+    }
+}
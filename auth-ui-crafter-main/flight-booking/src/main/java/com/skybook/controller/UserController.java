@@ -1,10 +1,14 @@
 package com.skybook.controller;
 
+import com.skybook.service.SessionService;
 import com.skybook.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * UserController - REST API endpoints for user profile
@@ -16,14 +20,21 @@ import java.util.Map;
 public class UserController {
     
     private final UserService userService;
+    private final SessionService sessionService;
     
     /**
      * GET /api/users/profile
-     * Get user profile by email
+     * Get the caller's profile (session token, or legacy ?email=)
      */
     @GetMapping("/profile")
-    public ResponseEntity<Map<String, Object>> getProfile(@RequestParam String email) {
-        return userService.getUserProfile(email)
+    public ResponseEntity<Map<String, Object>> getProfile(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email) {
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return userService.getUserProfile(caller.get())
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
@@ -34,9 +45,14 @@ public class UserController {
      */
     @PutMapping("/profile")
     public ResponseEntity<Map<String, Object>> updateProfile(
-            @RequestParam String email,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email,
             @RequestBody Map<String, Object> updates) {
-        Map<String, Object> response = userService.updateProfile(email, updates);
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> response = userService.updateProfile(caller.get(), updates);
         return ResponseEntity.ok(response);
     }
     
@@ -46,9 +62,14 @@ public class UserController {
      */
     @PutMapping("/location")
     public ResponseEntity<Map<String, Object>> updateLocation(
-            @RequestParam String email,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String email,
             @RequestBody Map<String, String> request) {
-        Map<String, Object> response = userService.updateLocation(email, request.get("location"));
+        Optional<String> caller = sessionService.resolveCallerEmail(authorization, email);
+        if (caller.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> response = userService.updateLocation(caller.get(), request.get("location"));
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
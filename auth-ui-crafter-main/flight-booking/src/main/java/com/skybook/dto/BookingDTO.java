@@ -19,6 +19,7 @@ public class BookingDTO {
     private String passengerLastName;
     private String passengerEmail;
     private String passengerPhone;
+    private Boolean pointsCredited;
     
     public static BookingDTO fromBooking(Booking booking) {
         BookingDTO dto = new BookingDTO();
@@ -35,6 +36,7 @@ public class BookingDTO {
         dto.setPassengerLastName(booking.getPassengerLastName());
         dto.setPassengerEmail(booking.getPassengerEmail());
         dto.setPassengerPhone(booking.getPassengerPhone());
+        dto.setPointsCredited(booking.getPointsCredited());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.skybook.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * ChangeRecord - one entity insert, update or delete in the change log
+ * data is the stored form of the entity after the change, null for a delete.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRecord {
+
+    public enum Op { INSERT, UPDATE, DELETE }
+
+    private long sequence;
+    private LocalDateTime timestamp;
+    private String entity;
+    private Long id;
+    private Op op;
+    private JsonNode data;
+}
@@ -2,6 +2,7 @@ package com.skybook.dto;
 
 import com.skybook.model.*;
 import lombok.Data;
+import java.time.LocalDate;
 
 @Data
 public class FlightDTO {
@@ -16,6 +17,7 @@ public class FlightDTO {
     private Double basePrice;
     private Integer availableSeats;
     private String image;
+    private LocalDate departureDate;
     
     // Flight type specific fields
     private String type; // "DOMESTIC" or "INTERNATIONAL"
@@ -39,6 +41,7 @@ public class FlightDTO {
         dto.setBasePrice(flight.getBasePrice());
         dto.setAvailableSeats(flight.getAvailableSeats());
         dto.setImage(flight.getImage());
+        dto.setDepartureDate(flight.getDepartureDate());
         
         if (flight instanceof DomesticFlight) {
             DomesticFlight df = (DomesticFlight) flight;
@@ -71,6 +74,7 @@ public class FlightDTO {
             flight.setBasePrice(basePrice);
             flight.setAvailableSeats(availableSeats);
             flight.setImage(image);
+            flight.setDepartureDate(departureDate);
             flight.setStateTaxPercentage(stateTaxPercentage);
             flight.setIncludesMeal(includesMeal);
             return flight;
@@ -87,6 +91,7 @@ public class FlightDTO {
             flight.setBasePrice(basePrice);
             flight.setAvailableSeats(availableSeats);
             flight.setImage(image);
+            flight.setDepartureDate(departureDate);
             flight.setInternationalTaxPercentage(internationalTaxPercentage);
             flight.setVisaRequired(visaRequired);
             flight.setBaggageAllowanceKg(baggageAllowanceKg);
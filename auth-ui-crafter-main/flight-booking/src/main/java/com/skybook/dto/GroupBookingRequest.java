@@ -0,0 +1,50 @@
+package com.skybook.dto;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class GroupBookingRequest {
+    @NotNull(message = "Flight ID is required")
+    private Long flightId;
+    
+    // The first passenger is the lead passenger and pays for the group
+    @Valid
+    @NotEmpty(message = "At least one passenger is required")
+    @Size(max = 9, message = "A group booking can have at most 9 passengers")
+    private List<PassengerDetails> passengers = new ArrayList<>();
+    
+    @NotBlank(message = "Card number is required")
+    @Size(min = 16, max = 16, message = "Card number must be 16 digits")
+    private String cardNumber;
+    
+    @NotBlank(message = "Card expiry is required")
+    @Pattern(regexp = "^\\d{2}/\\d{2}$", message = "Invalid expiry format (MM/YY)")
+    private String cardExpiry;
+    
+    @NotBlank(message = "CVV is required")
+    @Size(min = 3, max = 4, message = "CVV must be 3-4 digits")
+    private String cardCvv;
+    
+    private String paymentType = "CREDIT_CARD"; // CREDIT_CARD, DEBIT_CARD, UPI
+    
+    @Data
+    public static class PassengerDetails {
+        @NotBlank(message = "First name is required")
+        private String firstName;
+        
+        @NotBlank(message = "Last name is required")
+        private String lastName;
+        
+        @NotBlank(message = "Email is required")
+        @Email(message = "Invalid email format")
+        private String email;
+        
+        @NotBlank(message = "Phone is required")
+        @Pattern(regexp = "^\\d{10}$", message = "Phone must be 10 digits")
+        private String phone;
+    }
+}
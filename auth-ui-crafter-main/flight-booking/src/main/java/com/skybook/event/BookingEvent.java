@@ -0,0 +1,26 @@
+package com.skybook.event;
+
+import com.skybook.model.Booking;
+import lombok.Getter;
+
+/**
+ * BookingEvent - a booking confirmed or cancelled, carried on the BookingEventBus
+ * Instances are ring buffer slots, pre-allocated and overwritten in place:
+ * handlers must not keep a reference to the event after onEvent returns.
+ */
+@Getter
+public class BookingEvent {
+
+    public enum Type { CONFIRMED, CANCELLED }
+
+    private Type type;
+    private Booking booking;
+    // Status before a cancellation, null for CONFIRMED
+    private String previousStatus;
+
+    public void set(Type type, Booking booking, String previousStatus) {
+        this.type = type;
+        this.booking = booking;
+        this.previousStatus = previousStatus;
+    }
+}
@@ -0,0 +1,12 @@
+package com.skybook.event;
+
+import com.skybook.util.RingBuffer;
+
+/**
+ * BookingEventHandler - a booking side effect run off the request path
+ * Every handler bean gets its own consumer thread on the BookingEventBus and
+ * sees every event in publish order; endOfBatch marks the last event
+ * currently available, so work can be accumulated and flushed once per batch.
+ */
+public interface BookingEventHandler extends RingBuffer.Handler<BookingEvent> {
+}
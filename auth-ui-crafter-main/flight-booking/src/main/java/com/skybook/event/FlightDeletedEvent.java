@@ -0,0 +1,13 @@
+package com.skybook.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * FlightDeletedEvent - published by FlightRepository after a flight is removed
+ */
+@Data
+@AllArgsConstructor
+public class FlightDeletedEvent {
+    private Long flightId;
+}
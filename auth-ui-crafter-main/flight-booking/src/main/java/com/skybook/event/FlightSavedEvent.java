@@ -0,0 +1,14 @@
+package com.skybook.event;
+
+import com.skybook.model.Flight;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * FlightSavedEvent - published by FlightRepository after a flight is written
+ */
+@Data
+@AllArgsConstructor
+public class FlightSavedEvent {
+    private Flight flight;
+}
@@ -0,0 +1,20 @@
+package com.skybook.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * StorageChangedEvent - another instance sharing the storage directory
+ * committed to these collections; in-memory state built from them is stale
+ */
+@Data
+@AllArgsConstructor
+public class StorageChangedEvent {
+    private Set<String> collections;
+
+    public boolean affects(String collection) {
+        return collections.contains(collection);
+    }
+}
@@ -0,0 +1,19 @@
+package com.skybook.exception;
+
+/**
+ * ChangeLogTruncatedException - a change log read from before the oldest retained record
+ * Mapped to 410 Gone; the reader has to resync from a snapshot
+ */
+public class ChangeLogTruncatedException extends RuntimeException {
+
+    private final long oldestSequence;
+
+    public ChangeLogTruncatedException(long afterSequence, long oldestSequence) {
+        super("Changes after " + afterSequence + " are no longer retained; oldest is " + oldestSequence);
+        this.oldestSequence = oldestSequence;
+    }
+
+    public long getOldestSequence() {
+        return oldestSequence;
+    }
+}
@@ -0,0 +1,12 @@
+package com.skybook.exception;
+
+/**
+ * IdempotencyConflictException - an Idempotency-Key was reused for a different request
+ * Mapped to 422 Unprocessable Entity
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String key) {
+        super("Idempotency-Key was already used for a different request: " + key);
+    }
+}
@@ -0,0 +1,12 @@
+package com.skybook.exception;
+
+/**
+ * InvalidCursorException - a pagination cursor that wasn't issued by us
+ * Mapped to 400 Bad Request
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
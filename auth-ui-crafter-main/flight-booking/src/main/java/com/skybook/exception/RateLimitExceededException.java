@@ -0,0 +1,19 @@
+package com.skybook.exception;
+
+/**
+ * RateLimitExceededException - caller ran out of tokens for an endpoint
+ * Mapped to 429 Too Many Requests with a Retry-After header
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String limit, long retryAfterSeconds) {
+        super("Too many requests (" + limit + "), retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.skybook.exception;
+
+/**
+ * ServiceBusyException - thrown when a bounded worker pool rejects work
+ * Mapped to 503 Service Unavailable with a Retry-After hint
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
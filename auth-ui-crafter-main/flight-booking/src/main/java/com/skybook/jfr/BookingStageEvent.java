@@ -0,0 +1,29 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * BookingStageEvent - one stage of createBooking / createGroupBooking
+ * Stages that wait on payment begin on the request thread and commit on a
+ * payment thread, so the duration covers the whole wait.
+ */
+@Name("com.skybook.BookingStage")
+@Label("Booking Stage")
+@Category({"SkyBook", "Booking"})
+@Description("Seat hold, payment, confirm or end-to-end time of a booking")
+@StackTrace(false)
+public class BookingStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Flight Id")
+    public long flightId;
+}
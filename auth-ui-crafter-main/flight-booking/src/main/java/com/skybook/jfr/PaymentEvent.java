@@ -0,0 +1,27 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PaymentEvent - one gateway charge, from submission to its result
+ */
+@Name("com.skybook.Payment")
+@Label("Payment")
+@Category({"SkyBook", "Payment"})
+@Description("A charge through PaymentProcessor, including bulkhead queueing and timeout")
+@StackTrace(false)
+public class PaymentEvent extends jdk.jfr.Event {
+
+    @Label("Payment Method")
+    public String paymentMethod;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Status")
+    public String status;
+}
@@ -0,0 +1,29 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PdfRenderEvent - one e-ticket rendered
+ */
+@Name("com.skybook.PdfRender")
+@Label("Ticket PDF Render")
+@Category({"SkyBook", "PDF"})
+@Description("An e-ticket PDF generated by PdfService")
+@StackTrace(false)
+public class PdfRenderEvent extends jdk.jfr.Event {
+
+    @Label("Booking Reference")
+    public String bookingReference;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
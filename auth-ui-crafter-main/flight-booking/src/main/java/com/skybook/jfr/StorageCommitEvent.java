@@ -0,0 +1,28 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * StorageCommitEvent - a unit of work committed, journal and fsync included
+ */
+@Name("com.skybook.StorageCommit")
+@Label("Storage Commit")
+@Category({"SkyBook", "Storage"})
+@Description("A FileStorageService unit of work committed; the stack trace shows who wrote")
+public class StorageCommitEvent extends jdk.jfr.Event {
+
+    @Label("Collections")
+    public String collections;
+
+    @Label("Collection Count")
+    public int collectionCount;
+
+    @Label("Journaled")
+    public boolean journaled;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
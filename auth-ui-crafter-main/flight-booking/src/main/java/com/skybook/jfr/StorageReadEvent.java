@@ -0,0 +1,32 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * StorageReadEvent - one storage file read and deserialized
+ */
+@Name("com.skybook.StorageRead")
+@Label("Storage Read")
+@Category({"SkyBook", "Storage"})
+@Description("A collection file read by FileStorageService (forEach includes the caller's per-record work)")
+@StackTrace(false)
+public class StorageReadEvent extends jdk.jfr.Event {
+
+    @Label("Collection")
+    public String collection;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+}
@@ -0,0 +1,32 @@
+package com.skybook.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * StorageWriteEvent - one collection file written (or deleted) by a commit
+ */
+@Name("com.skybook.StorageWrite")
+@Label("Storage Write")
+@Category({"SkyBook", "Storage"})
+@Description("A collection file serialized, written aside, fsynced and renamed into place")
+@StackTrace(false)
+public class StorageWriteEvent extends jdk.jfr.Event {
+
+    @Label("Collection")
+    public String collection;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Deleted")
+    public boolean deleted;
+}
@@ -59,6 +59,10 @@ public class Booking {
     @Column(name = "passenger_phone")
     private String passengerPhone;
     
+    // Loyalty points added to the passenger; null on bookings from before this was tracked
+    @Column(name = "points_credited")
+    private Boolean pointsCredited;
+    
     @PrePersist
     protected void onCreate() {
         bookingDate = LocalDateTime.now();
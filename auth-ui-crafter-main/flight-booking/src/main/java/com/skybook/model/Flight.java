@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+
 /**
  * Abstract Flight class demonstrating INHERITANCE and POLYMORPHISM
  */
@@ -60,6 +62,10 @@ public abstract class Flight {
     
     private String image;
     
+    // Null for schedules that operate every day
+    @Column(name = "departure_date")
+    private LocalDate departureDate;
+    
     // Abstract methods - must be implemented by child classes
     public abstract String getFlightType();
     public abstract Double calculateFinalPrice();
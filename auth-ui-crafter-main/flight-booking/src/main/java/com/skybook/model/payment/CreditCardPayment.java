@@ -2,7 +2,6 @@ package com.skybook.model.payment;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import java.util.UUID;
 
 /**
  * CreditCardPayment - implements Payment interface
@@ -31,7 +30,6 @@ public class CreditCardPayment implements Payment {
             return false;
         }
         // Simulate payment processing
-        this.transactionId = "CC-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         System.out.println("Processing Credit Card payment of ₹" + amount);
         return true;
     }
@@ -58,4 +56,9 @@ public class CreditCardPayment implements Payment {
     public String getTransactionId() {
         return transactionId;
     }
+    
+    @Override
+    public String getTransactionPrefix() {
+        return "CC";
+    }
 }
\ No newline at end of file
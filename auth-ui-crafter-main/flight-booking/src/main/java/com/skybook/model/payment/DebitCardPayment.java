@@ -2,7 +2,6 @@ package com.skybook.model.payment;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import java.util.UUID;
 
 /**
  * DebitCardPayment - implements Payment interface differently
@@ -34,7 +33,6 @@ public class DebitCardPayment implements Payment {
             return false;
         }
         // Simulate debit card payment processing
-        this.transactionId = "DC-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         System.out.println("Processing Debit Card payment of ₹" + amount + " via " + bankName);
         return true;
     }
@@ -62,4 +60,9 @@ public class DebitCardPayment implements Payment {
     public String getTransactionId() {
         return transactionId;
     }
+    
+    @Override
+    public String getTransactionPrefix() {
+        return "DC";
+    }
 }
\ No newline at end of file
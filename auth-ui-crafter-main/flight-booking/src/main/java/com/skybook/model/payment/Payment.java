@@ -30,4 +30,14 @@ public interface Payment {
      * Get transaction ID after successful payment
      */
     String getTransactionId();
+    
+    /**
+     * Set by the payment gateway once the provider approves the payment
+     */
+    void setTransactionId(String transactionId);
+    
+    /**
+     * Prefix identifying the payment type in transaction IDs (e.g. "CC")
+     */
+    String getTransactionPrefix();
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package com.skybook.model.payment;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import java.util.UUID;
 
 /**
  * UPIPayment - implements Payment interface with UPI specific logic
@@ -27,7 +26,6 @@ public class UPIPayment implements Payment {
             return false;
         }
         // Simulate UPI payment processing
-        this.transactionId = "UPI-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         System.out.println("Processing UPI payment of ₹" + amount + " to " + upiId);
         return true;
     }
@@ -53,4 +51,9 @@ public class UPIPayment implements Payment {
     public String getTransactionId() {
         return transactionId;
     }
+    
+    @Override
+    public String getTransactionPrefix() {
+        return "UPI";
+    }
 }
\ No newline at end of file
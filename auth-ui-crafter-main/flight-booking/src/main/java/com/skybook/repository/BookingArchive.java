@@ -0,0 +1,277 @@
+package com.skybook.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skybook.dto.BookingDTO;
+import com.skybook.service.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * BookingArchive - cold tier for bookings that can no longer change
+ * Archived bookings live in gzip NDJSON segments, one per booking month
+ * per archive run (archive/bookings-2025-03-20251019-020000123.ndjson.gz).
+ * A run writes each segment to a temporary file, syncs it and renames it
+ * into place, so a segment is either complete or absent and existing data
+ * is never rewritten. A small index (id, reference, email -> segment) is
+ * kept in memory and in bookings-archive-index.json so a lookup reads a
+ * single segment; it is only updated once the run's unit of work commits.
+ * The index only grows, so entries another instance sharing the storage
+ * added are picked up by merging the file back in when its stamp moves.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingArchive {
+
+    private static final String INDEX_FILE = "bookings-archive-index";
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${skybook.storage.path:./data}")
+    private String storagePath;
+
+    private final Map<Long, String> segmentById = new ConcurrentHashMap<>();
+    private final Map<String, String> segmentByReference = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> segmentsByEmail = new ConcurrentHashMap<>();
+    private volatile long maxId = 0L;
+    private volatile long indexVersion;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(archiveDir());
+        indexVersion = fileStorageService.getExternalVersion(INDEX_FILE);
+        fileStorageService.loadList(INDEX_FILE, IndexEntry.class).forEach(this::addToIndex);
+    }
+
+    /**
+     * Write the bookings to new month segments and index them.
+     * Call inside a unit of work that also removes them from the hot file;
+     * the in-memory index only takes the new entries once it commits. If the
+     * unit of work fails later, the new segments are left unindexed and never read.
+     */
+    public void append(List<BookingDTO> bookings) throws IOException {
+        String runId = LocalDateTime.now().format(RUN_ID);
+        Map<String, List<BookingDTO>> bySegment = new TreeMap<>();
+        for (BookingDTO dto : bookings) {
+            bySegment.computeIfAbsent(segmentFor(dto, runId), key -> new ArrayList<>()).add(dto);
+        }
+        List<Path> written = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<BookingDTO>> segment : bySegment.entrySet()) {
+                written.add(writeSegment(segment.getKey(), segment.getValue()));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Path path : written) {
+                Files.deleteIfExists(path);
+            }
+            throw e;
+        }
+
+        List<IndexEntry> added = new ArrayList<>();
+        for (Map.Entry<String, List<BookingDTO>> segment : bySegment.entrySet()) {
+            for (BookingDTO dto : segment.getValue()) {
+                added.add(new IndexEntry(dto.getId(), dto.getBookingReference(), dto.getPassengerEmail(), segment.getKey()));
+            }
+        }
+        // The stored index, not ours - it may hold entries from another instance
+        List<IndexEntry> stored = new ArrayList<>(fileStorageService.loadList(INDEX_FILE, IndexEntry.class));
+        stored.addAll(added);
+        fileStorageService.save(INDEX_FILE, stored);
+        fileStorageService.afterCommit(() -> added.forEach(this::addIfAbsent));
+    }
+
+    /**
+     * Write one segment to a temporary file, sync it and rename it into place
+     */
+    private Path writeSegment(String segment, List<BookingDTO> dtos) throws IOException {
+        Path target = archiveDir().resolve(segment);
+        if (Files.exists(target)) {
+            throw new IOException("Archive segment " + segment + " already exists");
+        }
+        Path temp = archiveDir().resolve(segment + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out));
+                for (BookingDTO dto : dtos) {
+                    gzip.write(objectMapper.writeValueAsBytes(dto));
+                    gzip.write('\n');
+                }
+                gzip.finish();
+                gzip.flush();
+                // Durable before the hot file stops holding these bookings
+                out.getFD().sync();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Optional<BookingDTO> findById(Long id) {
+        refreshIndex();
+        String segment = segmentById.get(id);
+        if (segment == null) {
+            return Optional.empty();
+        }
+        BookingDTO[] found = new BookingDTO[1];
+        readSegment(segment, dto -> {
+            if (found[0] == null && id.equals(dto.getId())) {
+                found[0] = dto;
+            }
+        });
+        return Optional.ofNullable(found[0]);
+    }
+
+    public Optional<BookingDTO> findByBookingReference(String bookingReference) {
+        refreshIndex();
+        String segment = segmentByReference.get(bookingReference);
+        if (segment == null) {
+            return Optional.empty();
+        }
+        BookingDTO[] found = new BookingDTO[1];
+        readSegment(segment, dto -> {
+            if (found[0] == null && bookingReference.equals(dto.getBookingReference())) {
+                found[0] = dto;
+            }
+        });
+        return Optional.ofNullable(found[0]);
+    }
+
+    /**
+     * Archived bookings of one passenger, reading only the segments they appear in
+     */
+    public List<BookingDTO> findByPassengerEmail(String email) {
+        refreshIndex();
+        Set<String> segments = segmentsByEmail.getOrDefault(email, Set.of());
+        Map<Long, BookingDTO> found = new TreeMap<>();
+        for (String segment : segments) {
+            readSegment(segment, dto -> {
+                if (email.equals(dto.getPassengerEmail())) {
+                    found.putIfAbsent(dto.getId(), dto);
+                }
+            });
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Stream every indexed archived booking
+     */
+    public void forEach(Consumer<BookingDTO> action) {
+        refreshIndex();
+        Set<Long> seen = new HashSet<>();
+        for (String segment : new TreeSet<>(segmentById.values())) {
+            readSegment(segment, dto -> {
+                // A run interrupted before its index was saved may have left a duplicate
+                if (segmentById.containsKey(dto.getId()) && seen.add(dto.getId())) {
+                    action.accept(dto);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        refreshIndex();
+        return segmentById.size();
+    }
+
+    /**
+     * Highest archived id, so new hot bookings never reuse one
+     */
+    public long getMaxId() {
+        refreshIndex();
+        return maxId;
+    }
+    
+    /**
+     * Merge in index entries another instance wrote since we last looked
+     */
+    private void refreshIndex() {
+        long version = fileStorageService.getExternalVersion(INDEX_FILE);
+        if (version == indexVersion) {
+            return;
+        }
+        fileStorageService.loadList(INDEX_FILE, IndexEntry.class).forEach(this::addIfAbsent);
+        indexVersion = version;
+    }
+
+    private void readSegment(String segment, Consumer<BookingDTO> action) {
+        File file = archiveDir().resolve(segment).toFile();
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    action.accept(objectMapper.readValue(line, BookingDTO.class));
+                }
+            }
+        } catch (EOFException e) {
+            // Only segments from before runs got their own file can end in a
+            // torn member; everything indexed was read before it
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read archive segment " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void addIfAbsent(IndexEntry entry) {
+        if (!segmentById.containsKey(entry.getId())) {
+            addToIndex(entry);
+        }
+    }
+    
+    private synchronized void addToIndex(IndexEntry entry) {
+        maxId = Math.max(maxId, entry.getId());
+        segmentById.put(entry.getId(), entry.getSegment());
+        if (entry.getBookingReference() != null) {
+            segmentByReference.put(entry.getBookingReference(), entry.getSegment());
+        }
+        if (entry.getPassengerEmail() != null) {
+            segmentsByEmail.computeIfAbsent(entry.getPassengerEmail(), key -> ConcurrentHashMap.newKeySet())
+                .add(entry.getSegment());
+        }
+    }
+
+    private static String segmentFor(BookingDTO dto, String runId) {
+        String month = dto.getBookingDate() != null ? dto.getBookingDate().format(SEGMENT_MONTH) : "undated";
+        return "bookings-" + month + "-" + runId + ".ndjson.gz";
+    }
+
+    private Path archiveDir() {
+        return Paths.get(storagePath, "archive");
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexEntry {
+        private Long id;
+        private String bookingReference;
+        private String passengerEmail;
+        private String segment;
+    }
+}
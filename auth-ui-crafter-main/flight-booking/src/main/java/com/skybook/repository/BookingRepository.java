@@ -1,43 +1,142 @@
 package com.skybook.repository;
 
 import com.skybook.dto.BookingDTO;
+import com.skybook.dto.ChangeRecord;
 import com.skybook.model.Booking;
+import com.skybook.model.Flight;
 import com.skybook.model.Passenger;
+import com.skybook.model.User;
 import com.skybook.service.FileStorageService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
+@Timed(value = "skybook.repository.query", histogram = true)
 public class BookingRepository {
     
     private final FileStorageService fileStorageService;
     private final UserRepository userRepository;
     private final FlightRepository flightRepository;
-    private static final String BOOKINGS_FILE = "bookings";
+    private final BookingArchive bookingArchive;
+    public static final String BOOKINGS_FILE = "bookings";
+    private static final String ACTIVE_STATUS = "CONFIRMED";
+    private static final String ENTITY = "booking";
     
     public Booking save(Booking booking) {
-        List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+        return fileStorageService.inUnitOfWork(() -> {
+            List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+            
+            if (booking.getId() == null) {
+                booking.setId(generateId(dtos));
+            }
+            
+            BookingDTO newDto = BookingDTO.fromBooking(booking);
+            
+            // Remove old version if updating
+            int before = dtos.size();
+            dtos = dtos.stream()
+                    .filter(dto -> !dto.getId().equals(booking.getId()))
+                    .collect(Collectors.toList());
+            ChangeRecord.Op op = dtos.size() < before ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT;
+            
+            dtos.add(newDto);
+            fileStorageService.save(BOOKINGS_FILE, dtos);
+            fileStorageService.recordChange(ENTITY, op, booking.getId(), newDto);
+            return booking;
+        });
+    }
+    
+    /**
+     * Save several bookings with a single read and a single write
+     */
+    public List<Booking> saveAll(List<Booking> bookings) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+            long nextId = generateId(dtos);
+            
+            Set<Long> updatedIds = new HashSet<>();
+            for (Booking booking : bookings) {
+                if (booking.getId() == null) {
+                    booking.setId(nextId++);
+                }
+                updatedIds.add(booking.getId());
+            }
+            
+            Set<Long> existingIds = dtos.stream()
+                    .map(BookingDTO::getId)
+                    .filter(updatedIds::contains)
+                    .collect(Collectors.toSet());
+            dtos = dtos.stream()
+                    .filter(dto -> !updatedIds.contains(dto.getId()))
+                    .collect(Collectors.toList());
+            for (Booking booking : bookings) {
+                BookingDTO newDto = BookingDTO.fromBooking(booking);
+                dtos.add(newDto);
+                fileStorageService.recordChange(ENTITY, existingIds.contains(booking.getId())
+                    ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT, booking.getId(), newDto);
+            }
+            fileStorageService.save(BOOKINGS_FILE, dtos);
+            return bookings;
+        });
+    }
+    
+    private Booking dtoToBooking(BookingDTO dto) {
+        Booking booking = copyFields(dto);
         
-        if (booking.getId() == null) {
-            booking.setId(generateId(dtos));
+        // Load relationships with null checks
+        if (dto.getPassengerId() != null) {
+            userRepository.findById(dto.getPassengerId()).ifPresent(user -> {
+                if (user instanceof Passenger) {
+                    booking.setPassenger((Passenger) user);
+                }
+            });
         }
         
-        BookingDTO newDto = BookingDTO.fromBooking(booking);
-        
-        // Remove old version if updating
-        dtos = dtos.stream()
-                .filter(dto -> !dto.getId().equals(booking.getId()))
-                .collect(Collectors.toList());
+        if (dto.getFlightId() != null) {
+            flightRepository.findById(dto.getFlightId()).ifPresent(booking::setFlight);
+        }
         
-        dtos.add(newDto);
-        fileStorageService.save(BOOKINGS_FILE, dtos);
         return booking;
     }
     
-    private Booking dtoToBooking(BookingDTO dto) {
+    /**
+     * Convert a batch, resolving its flights and passengers with one read of each file
+     * rather than two reads per booking
+     */
+    private List<Booking> dtosToBookings(List<BookingDTO> dtos) {
+        Map<Long, Flight> flights = flightRepository.findAllByIds(dtos.stream()
+                .map(BookingDTO::getFlightId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Map<Long, User> users = userRepository.findAllByIds(dtos.stream()
+                .map(BookingDTO::getPassengerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        
+        List<Booking> bookings = new ArrayList<>(dtos.size());
+        for (BookingDTO dto : dtos) {
+            Booking booking = copyFields(dto);
+            User user = users.get(dto.getPassengerId());
+            if (user instanceof Passenger) {
+                booking.setPassenger((Passenger) user);
+            }
+            booking.setFlight(flights.get(dto.getFlightId()));
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+    
+    private Booking copyFields(BookingDTO dto) {
         Booking booking = new Booking();
         booking.setId(dto.getId());
         booking.setBookingReference(dto.getBookingReference());
@@ -50,35 +149,24 @@ public class BookingRepository {
         booking.setPassengerLastName(dto.getPassengerLastName());
         booking.setPassengerEmail(dto.getPassengerEmail());
         booking.setPassengerPhone(dto.getPassengerPhone());
-        
-        // Load relationships with null checks
-        if (dto.getPassengerId() != null) {
-            userRepository.findById(dto.getPassengerId()).ifPresent(user -> {
-                if (user instanceof Passenger) {
-                    booking.setPassenger((Passenger) user);
-                }
-            });
-        }
-        
-        if (dto.getFlightId() != null) {
-            flightRepository.findById(dto.getFlightId()).ifPresent(booking::setFlight);
-        }
-        
+        booking.setPointsCredited(dto.getPointsCredited());
         return booking;
     }
     
     public Optional<Booking> findById(Long id) {
-        return fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
+        Optional<Booking> hot = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
                 .filter(dto -> dto.getId().equals(id))
                 .map(this::dtoToBooking)
                 .findFirst();
+        return hot.isPresent() ? hot : bookingArchive.findById(id).map(this::dtoToBooking);
     }
     
     public Optional<Booking> findByBookingReference(String bookingReference) {
-        return fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
+        Optional<Booking> hot = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
                 .filter(dto -> dto.getBookingReference().equals(bookingReference))
                 .map(this::dtoToBooking)
                 .findFirst();
+        return hot.isPresent() ? hot : bookingArchive.findByBookingReference(bookingReference).map(this::dtoToBooking);
     }
     
     public List<Booking> findByPassenger(Passenger passenger) {
@@ -104,17 +192,179 @@ public class BookingRepository {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Hot and archived bookings of the passenger
+     */
     public List<Booking> findByPassengerEmail(String email) {
-        return fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
+        List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
                 .filter(dto -> dto.getPassengerEmail().equals(email))
-                .map(this::dtoToBooking)
                 .collect(Collectors.toList());
+        dtos.addAll(0, bookingArchive.findByPassengerEmail(email));
+        return dtosToBookings(dtos);
+    }
+    
+    /**
+     * Up to limit of the passenger's bookings (hot or archived) with id greater than afterId, in id order
+     */
+    public List<Booking> findPageByPassengerEmail(String email, long afterId, int limit) {
+        List<BookingDTO> page = new ArrayList<>(fileStorageService.scanPage(BOOKINGS_FILE, BookingDTO.class,
+                dto -> dto, dto -> email.equals(dto.getPassengerEmail()), BookingDTO::getId, afterId, limit));
+        bookingArchive.findByPassengerEmail(email).stream()
+                .filter(dto -> dto.getId() > afterId)
+                .limit(limit)
+                .forEach(page::add);
+        page.sort(Comparator.comparing(BookingDTO::getId));
+        return dtosToBookings(page.subList(0, Math.min(limit, page.size())));
+    }
+    
+    /**
+     * Hand the passenger's bookings (archived first) to the sink in batches
+     */
+    public void streamByPassengerEmail(String email, int batchSize, Consumer<List<Booking>> sink) {
+        List<BookingDTO> archived = bookingArchive.findByPassengerEmail(email);
+        for (int i = 0; i < archived.size(); i += batchSize) {
+            sink.accept(dtosToBookings(archived.subList(i, Math.min(archived.size(), i + batchSize))));
+        }
+        
+        List<BookingDTO> batch = new ArrayList<>(batchSize);
+        fileStorageService.forEach(BOOKINGS_FILE, BookingDTO.class, dto -> {
+            if (!email.equals(dto.getPassengerEmail())) {
+                return;
+            }
+            batch.add(dto);
+            if (batch.size() == batchSize) {
+                sink.accept(dtosToBookings(batch));
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            sink.accept(dtosToBookings(batch));
+        }
+    }
+    
+    /**
+     * The passenger's bookings (archived first) as a Flux. Flights and users
+     * are resolved per batch, and only one batch is read ahead of the subscriber.
+     */
+    public Flux<Booking> fluxByPassengerEmail(String email, int batchSize) {
+        Flux<BookingDTO> archived = Flux.defer(() -> Flux.fromIterable(bookingArchive.findByPassengerEmail(email)))
+            .subscribeOn(Schedulers.boundedElastic());
+        Flux<BookingDTO> hot = fileStorageService.flux(BOOKINGS_FILE, BookingDTO.class)
+            .filter(dto -> email.equals(dto.getPassengerEmail()));
+        return Flux.concat(archived, hot)
+            .buffer(batchSize)
+            .concatMapIterable(this::dtosToBookings);
+    }
+    
+    /**
+     * Visit every booking, hot and archived, with its flight attached
+     * (passenger not loaded), reading flights once and streaming bookings
+     */
+    public void forEachWithFlight(Consumer<Booking> action) {
+        Map<Long, Flight> flights = new HashMap<>();
+        flightRepository.forEach(flight -> true, flight -> flights.put(flight.getId(), flight));
+        Set<Long> hotIds = new HashSet<>();
+        Consumer<BookingDTO> visit = dto -> {
+            Booking booking = copyFields(dto);
+            booking.setFlight(flights.get(dto.getFlightId()));
+            action.accept(booking);
+        };
+        fileStorageService.forEach(BOOKINGS_FILE, BookingDTO.class, dto -> {
+            hotIds.add(dto.getId());
+            visit.accept(dto);
+        });
+        // Skip any booking a crashed archive run left in both tiers
+        bookingArchive.forEach(dto -> {
+            if (!hotIds.contains(dto.getId())) {
+                visit.accept(dto);
+            }
+        });
     }
     
     public List<Booking> findAll() {
-        return fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
-                .map(this::dtoToBooking)
-                .collect(Collectors.toList());
+        List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+        Set<Long> hotIds = dtos.stream().map(BookingDTO::getId).collect(Collectors.toSet());
+        bookingArchive.forEach(dto -> {
+            if (!hotIds.contains(dto.getId())) {
+                dtos.add(dto);
+            }
+        });
+        return dtosToBookings(dtos);
+    }
+    
+    /**
+     * Move up to limit bookings that can no longer change (not CONFIRMED) and
+     * were booked before the cutoff into the archive. The archive append is
+     * durable before the hot file is rewritten without them, in one unit of work.
+     * @return how many bookings were archived
+     */
+    public int archiveInactive(LocalDateTime bookedBefore, int limit) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<BookingDTO> hot = new ArrayList<>();
+            List<BookingDTO> cold = new ArrayList<>();
+            for (BookingDTO dto : fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class)) {
+                boolean inactive = !ACTIVE_STATUS.equals(dto.getStatus())
+                        && (dto.getBookingDate() == null || dto.getBookingDate().isBefore(bookedBefore));
+                if (inactive && cold.size() < limit) {
+                    cold.add(dto);
+                } else {
+                    hot.add(dto);
+                }
+            }
+            if (cold.isEmpty()) {
+                return 0;
+            }
+            try {
+                bookingArchive.append(cold);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to booking archive", e);
+            }
+            // Moving tiers isn't an entity change, so nothing goes to the change log
+            fileStorageService.save(BOOKINGS_FILE, hot);
+            return cold.size();
+        });
+    }
+    
+    /**
+     * Ids of hot bookings whose loyalty points are still owed
+     */
+    public List<Long> findIdsAwaitingPoints() {
+        List<Long> ids = new ArrayList<>();
+        fileStorageService.forEach(BOOKINGS_FILE, BookingDTO.class, dto -> {
+            if (Boolean.FALSE.equals(dto.getPointsCredited())) {
+                ids.add(dto.getId());
+            }
+        });
+        return ids;
+    }
+    
+    /**
+     * Mark the bookings' loyalty points as settled. Run in the unit of work
+     * that credits them, so the flag and the points commit together.
+     * @return the bookings that are owed points: not yet settled and not cancelled
+     *         (one cancelled before it was credited is settled without points)
+     */
+    public List<BookingDTO> settlePoints(Collection<Long> ids) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+            List<BookingDTO> owed = new ArrayList<>();
+            boolean changed = false;
+            for (BookingDTO dto : dtos) {
+                if (!ids.contains(dto.getId()) || !Boolean.FALSE.equals(dto.getPointsCredited())) {
+                    continue;
+                }
+                dto.setPointsCredited(true);
+                fileStorageService.recordChange(ENTITY, ChangeRecord.Op.UPDATE, dto.getId(), dto);
+                changed = true;
+                if (!"CANCELLED".equals(dto.getStatus())) {
+                    owed.add(dto);
+                }
+            }
+            if (changed) {
+                fileStorageService.save(BOOKINGS_FILE, dtos);
+            }
+            return owed;
+        });
     }
     
     public void delete(Booking booking) {
@@ -122,16 +372,23 @@ public class BookingRepository {
     }
     
     public void deleteById(Long id) {
-        List<BookingDTO> dtos = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class).stream()
-                .filter(dto -> !dto.getId().equals(id))
-                .collect(Collectors.toList());
-        fileStorageService.save(BOOKINGS_FILE, dtos);
+        fileStorageService.runInUnitOfWork(() -> {
+            List<BookingDTO> stored = fileStorageService.loadList(BOOKINGS_FILE, BookingDTO.class);
+            List<BookingDTO> dtos = stored.stream()
+                    .filter(dto -> !dto.getId().equals(id))
+                    .collect(Collectors.toList());
+            fileStorageService.save(BOOKINGS_FILE, dtos);
+            if (dtos.size() < stored.size()) {
+                fileStorageService.recordChange(ENTITY, ChangeRecord.Op.DELETE, id, null);
+            }
+        });
     }
     
     private Long generateId(List<BookingDTO> dtos) {
-        return dtos.stream()
+        // Archived ids stay taken
+        return Math.max(dtos.stream()
                 .mapToLong(BookingDTO::getId)
                 .max()
-                .orElse(0L) + 1;
+                .orElse(0L), bookingArchive.getMaxId()) + 1;
     }
 }
\ No newline at end of file
@@ -1,37 +1,104 @@
 package com.skybook.repository;
 
+import com.skybook.dto.ChangeRecord;
 import com.skybook.dto.FlightDTO;
+import com.skybook.event.FlightDeletedEvent;
+import com.skybook.event.FlightSavedEvent;
 import com.skybook.model.Flight;
 import com.skybook.service.FileStorageService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
+@Timed(value = "skybook.repository.query", histogram = true)
 public class FlightRepository {
     
     private final FileStorageService fileStorageService;
-    private static final String FLIGHTS_FILE = "flights";
+    private final ApplicationEventPublisher eventPublisher;
+    public static final String FLIGHTS_FILE = "flights";
+    private static final String ENTITY = "flight";
     
     public Flight save(Flight flight) {
-        List<FlightDTO> dtos = fileStorageService.loadList(FLIGHTS_FILE, FlightDTO.class);
-        
-        if (flight.getId() == null) {
-            flight.setId(generateId(dtos));
-        }
-        
-        FlightDTO newDto = FlightDTO.fromFlight(flight);
-        
-        // Remove old version if updating
-        dtos = dtos.stream()
-                .filter(dto -> !dto.getId().equals(flight.getId()))
-                .collect(Collectors.toList());
-        
-        dtos.add(newDto);
-        fileStorageService.save(FLIGHTS_FILE, dtos);
-        return flight;
+        return fileStorageService.inUnitOfWork(() -> {
+            List<FlightDTO> dtos = fileStorageService.loadList(FLIGHTS_FILE, FlightDTO.class);
+            
+            if (flight.getId() == null) {
+                flight.setId(generateId(dtos));
+            }
+            
+            FlightDTO newDto = FlightDTO.fromFlight(flight);
+            
+            // Remove old version if updating
+            int before = dtos.size();
+            dtos = dtos.stream()
+                    .filter(dto -> !dto.getId().equals(flight.getId()))
+                    .collect(Collectors.toList());
+            ChangeRecord.Op op = dtos.size() < before ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT;
+            
+            dtos.add(newDto);
+            fileStorageService.save(FLIGHTS_FILE, dtos);
+            fileStorageService.recordChange(ENTITY, op, flight.getId(), newDto);
+            fileStorageService.afterCommit(() -> eventPublisher.publishEvent(new FlightSavedEvent(flight)));
+            return flight;
+        });
+    }
+    
+    /**
+     * Save several flights with a single read and a single write
+     */
+    public List<Flight> saveAll(List<? extends Flight> flights) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<FlightDTO> dtos = fileStorageService.loadList(FLIGHTS_FILE, FlightDTO.class);
+            long nextId = generateId(dtos);
+            
+            Set<Long> updatedIds = new HashSet<>();
+            for (Flight flight : flights) {
+                if (flight.getId() == null) {
+                    flight.setId(nextId++);
+                }
+                updatedIds.add(flight.getId());
+            }
+            
+            Set<Long> existingIds = dtos.stream()
+                    .map(FlightDTO::getId)
+                    .filter(updatedIds::contains)
+                    .collect(Collectors.toSet());
+            dtos = dtos.stream()
+                    .filter(dto -> !updatedIds.contains(dto.getId()))
+                    .collect(Collectors.toList());
+            for (Flight flight : flights) {
+                FlightDTO newDto = FlightDTO.fromFlight(flight);
+                dtos.add(newDto);
+                fileStorageService.recordChange(ENTITY, existingIds.contains(flight.getId())
+                    ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT, flight.getId(), newDto);
+            }
+            fileStorageService.save(FLIGHTS_FILE, dtos);
+            
+            List<Flight> saved = new ArrayList<>(flights);
+            fileStorageService.afterCommit(() -> saved.forEach(flight -> eventPublisher.publishEvent(new FlightSavedEvent(flight))));
+            return saved;
+        });
+    }
+    
+    /**
+     * Flight number -> id and current seat count for every stored flight, in one pass
+     */
+    public Map<String, StoredSeats> findSeatsByFlightNumber() {
+        Map<String, StoredSeats> seats = new HashMap<>();
+        fileStorageService.forEach(FLIGHTS_FILE, FlightDTO.class,
+            dto -> seats.put(dto.getFlightNumber(), new StoredSeats(dto.getId(), dto.getAvailableSeats())));
+        return seats;
+    }
+    
+    public record StoredSeats(Long id, Integer availableSeats) {
     }
     
     public Optional<Flight> findById(Long id) {
@@ -84,15 +151,62 @@ public class FlightRepository {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Up to limit matching flights with id greater than afterId, in id order
+     */
+    public List<Flight> findPage(Predicate<Flight> filter, long afterId, int limit) {
+        return fileStorageService.scanPage(FLIGHTS_FILE, FlightDTO.class, FlightDTO::toFlight, filter,
+                Flight::getId, afterId, limit);
+    }
+    
+    /**
+     * Visit matching flights one at a time, in file order
+     */
+    public void forEach(Predicate<Flight> filter, Consumer<Flight> action) {
+        fileStorageService.forEach(FLIGHTS_FILE, FlightDTO.class, dto -> {
+            Flight flight = dto.toFlight();
+            if (filter.test(flight)) {
+                action.accept(flight);
+            }
+        });
+    }
+    
+    /**
+     * Matching flights in file order, parsed as the subscriber requests them
+     */
+    public Flux<Flight> flux(Predicate<Flight> filter) {
+        return fileStorageService.flux(FLIGHTS_FILE, FlightDTO.class)
+            .map(FlightDTO::toFlight)
+            .filter(filter);
+    }
+    
+    public Map<Long, Flight> findAllByIds(Collection<Long> ids) {
+        Set<Long> wanted = new HashSet<>(ids);
+        Map<Long, Flight> flights = new HashMap<>();
+        fileStorageService.forEach(FLIGHTS_FILE, FlightDTO.class, dto -> {
+            if (wanted.contains(dto.getId())) {
+                flights.put(dto.getId(), dto.toFlight());
+            }
+        });
+        return flights;
+    }
+    
     public void delete(Flight flight) {
         deleteById(flight.getId());
     }
     
     public void deleteById(Long id) {
-        List<FlightDTO> dtos = fileStorageService.loadList(FLIGHTS_FILE, FlightDTO.class).stream()
-                .filter(dto -> !dto.getId().equals(id))
-                .collect(Collectors.toList());
-        fileStorageService.save(FLIGHTS_FILE, dtos);
+        fileStorageService.runInUnitOfWork(() -> {
+            List<FlightDTO> stored = fileStorageService.loadList(FLIGHTS_FILE, FlightDTO.class);
+            List<FlightDTO> dtos = stored.stream()
+                    .filter(dto -> !dto.getId().equals(id))
+                    .collect(Collectors.toList());
+            fileStorageService.save(FLIGHTS_FILE, dtos);
+            if (dtos.size() < stored.size()) {
+                fileStorageService.recordChange(ENTITY, ChangeRecord.Op.DELETE, id, null);
+            }
+            fileStorageService.afterCommit(() -> eventPublisher.publishEvent(new FlightDeletedEvent(id)));
+        });
     }
     
     private Long generateId(List<FlightDTO> dtos) {
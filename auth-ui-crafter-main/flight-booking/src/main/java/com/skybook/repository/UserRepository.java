@@ -1,37 +1,148 @@
 package com.skybook.repository;
 
+import com.skybook.dto.ChangeRecord;
 import com.skybook.dto.UserDTO;
 import com.skybook.model.User;
 import com.skybook.service.FileStorageService;
+import com.skybook.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
+@Timed(value = "skybook.repository.query", histogram = true)
 public class UserRepository {
     
     private final FileStorageService fileStorageService;
     private static final String USERS_FILE = "users";
+    private static final double EMAIL_FILTER_FPP = 0.01;
+    private static final String ENTITY = "user";
+    // Never copied into the change log
+    private static final String PASSWORD_FIELD = "password";
+    
+    // Registered emails; a miss means the email is definitely not taken
+    private volatile BloomFilter emailFilter;
+    // Other instances' user writes aren't in the filter; rebuilt when this moves
+    private volatile long emailFilterVersion;
+    
+    @PostConstruct
+    public void init() {
+        refreshEmailFilter();
+    }
     
     public User save(User user) {
-        List<UserDTO> dtos = fileStorageService.loadList(USERS_FILE, UserDTO.class);
-        
-        if (user.getId() == null) {
-            user.setId(generateId(dtos));
+        return fileStorageService.inUnitOfWork(() -> {
+            List<UserDTO> dtos = fileStorageService.loadList(USERS_FILE, UserDTO.class);
+            
+            if (user.getId() == null) {
+                user.setId(generateId(dtos));
+            }
+            
+            UserDTO newDto = UserDTO.fromUser(user);
+            
+            // Remove old version if updating
+            int before = dtos.size();
+            dtos = dtos.stream()
+                    .filter(dto -> !dto.getId().equals(user.getId()))
+                    .collect(Collectors.toList());
+            ChangeRecord.Op op = dtos.size() < before ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT;
+            
+            dtos.add(newDto);
+            fileStorageService.save(USERS_FILE, dtos);
+            fileStorageService.recordChange(ENTITY, op, user.getId(), newDto, PASSWORD_FIELD);
+            
+            emailFilter.add(user.getEmail());
+            if (emailFilter.isSaturated()) {
+                rebuildEmailFilter(dtos);
+            }
+            return user;
+        });
+    }
+    
+    /**
+     * Save several users with a single read and a single write
+     */
+    public List<User> saveAll(List<? extends User> users) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<UserDTO> dtos = fileStorageService.loadList(USERS_FILE, UserDTO.class);
+            long nextId = generateId(dtos);
+            
+            Set<Long> updatedIds = new HashSet<>();
+            for (User user : users) {
+                if (user.getId() == null) {
+                    user.setId(nextId++);
+                }
+                updatedIds.add(user.getId());
+            }
+            
+            Set<Long> existingIds = dtos.stream()
+                    .map(UserDTO::getId)
+                    .filter(updatedIds::contains)
+                    .collect(Collectors.toSet());
+            dtos = dtos.stream()
+                    .filter(dto -> !updatedIds.contains(dto.getId()))
+                    .collect(Collectors.toList());
+            for (User user : users) {
+                UserDTO newDto = UserDTO.fromUser(user);
+                dtos.add(newDto);
+                fileStorageService.recordChange(ENTITY, existingIds.contains(user.getId())
+                    ? ChangeRecord.Op.UPDATE : ChangeRecord.Op.INSERT, user.getId(), newDto, PASSWORD_FIELD);
+            }
+            fileStorageService.save(USERS_FILE, dtos);
+            
+            users.forEach(user -> emailFilter.add(user.getEmail()));
+            if (emailFilter.isSaturated()) {
+                rebuildEmailFilter(dtos);
+            }
+            return new ArrayList<>(users);
+        });
+    }
+    
+    /**
+     * Look up several users by email in one pass over the file
+     */
+    public Map<String, User> findAllByEmails(Collection<String> emails) {
+        Set<String> wanted = new HashSet<>(emails);
+        return fileStorageService.loadList(USERS_FILE, UserDTO.class).stream()
+                .filter(dto -> wanted.contains(dto.getEmail()))
+                .map(UserDTO::toUser)
+                .collect(Collectors.toMap(User::getEmail, u -> u, (a, b) -> a));
+    }
+    
+    public Map<Long, User> findAllByIds(Collection<Long> ids) {
+        Set<Long> wanted = new HashSet<>(ids);
+        Map<Long, User> users = new HashMap<>();
+        fileStorageService.forEach(USERS_FILE, UserDTO.class, dto -> {
+            if (wanted.contains(dto.getId())) {
+                users.put(dto.getId(), dto.toUser());
+            }
+        });
+        return users;
+    }
+    
+    /**
+     * Apply many last-login timestamps with a single read and a single write
+     */
+    public void updateLastLogins(Map<Long, LocalDateTime> lastLogins) {
+        if (lastLogins.isEmpty()) {
+            return;
         }
-        
-        UserDTO newDto = UserDTO.fromUser(user);
-        
-        // Remove old version if updating
-        dtos = dtos.stream()
-                .filter(dto -> !dto.getId().equals(user.getId()))
-                .collect(Collectors.toList());
-        
-        dtos.add(newDto);
-        fileStorageService.save(USERS_FILE, dtos);
-        return user;
+        fileStorageService.runInUnitOfWork(() -> {
+            List<UserDTO> dtos = fileStorageService.loadList(USERS_FILE, UserDTO.class);
+            for (UserDTO dto : dtos) {
+                LocalDateTime loginTime = lastLogins.get(dto.getId());
+                if (loginTime != null && (dto.getUpdatedAt() == null || loginTime.isAfter(dto.getUpdatedAt()))) {
+                    dto.setUpdatedAt(loginTime);
+                    fileStorageService.recordChange(ENTITY, ChangeRecord.Op.UPDATE, dto.getId(), dto, PASSWORD_FIELD);
+                }
+            }
+            fileStorageService.save(USERS_FILE, dtos);
+        });
     }
     
     public Optional<User> findById(Long id) {
@@ -49,7 +160,15 @@ public class UserRepository {
     }
     
     public boolean existsByEmail(String email) {
-        return findByEmail(email).isPresent();
+        if (fileStorageService.getExternalVersion(USERS_FILE) != emailFilterVersion) {
+            refreshEmailFilter();
+        }
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
+        // Possible match - confirm against storage without building entities
+        return fileStorageService.loadList(USERS_FILE, UserDTO.class).stream()
+                .anyMatch(dto -> email.equals(dto.getEmail()));
     }
     
     public List<User> findAll() {
@@ -63,10 +182,30 @@ public class UserRepository {
     }
     
     public void deleteById(Long id) {
-        List<UserDTO> dtos = fileStorageService.loadList(USERS_FILE, UserDTO.class).stream()
-                .filter(dto -> !dto.getId().equals(id))
-                .collect(Collectors.toList());
-        fileStorageService.save(USERS_FILE, dtos);
+        fileStorageService.runInUnitOfWork(() -> {
+            List<UserDTO> stored = fileStorageService.loadList(USERS_FILE, UserDTO.class);
+            List<UserDTO> dtos = stored.stream()
+                    .filter(dto -> !dto.getId().equals(id))
+                    .collect(Collectors.toList());
+            fileStorageService.save(USERS_FILE, dtos);
+            if (dtos.size() < stored.size()) {
+                fileStorageService.recordChange(ENTITY, ChangeRecord.Op.DELETE, id, null);
+            }
+        });
+    }
+    
+    private void refreshEmailFilter() {
+        // Read before loading, so a change landing in between triggers another rebuild
+        long version = fileStorageService.getExternalVersion(USERS_FILE);
+        rebuildEmailFilter(fileStorageService.loadList(USERS_FILE, UserDTO.class));
+        emailFilterVersion = version;
+    }
+    
+    private void rebuildEmailFilter(List<UserDTO> dtos) {
+        // Sized with headroom so registrations don't force a rebuild right away
+        BloomFilter filter = new BloomFilter(Math.max(1024, dtos.size() * 2), EMAIL_FILTER_FPP);
+        dtos.forEach(dto -> filter.add(dto.getEmail()));
+        emailFilter = filter;
     }
     
     private Long generateId(List<UserDTO> dtos) {
@@ -21,6 +21,9 @@ import java.util.Optional;
 public class AuthService {
     
     private final UserRepository userRepository;
+    private final SessionService sessionService;
+    private final PasswordHashingService passwordHashingService;
+    private final LastLoginRecorder lastLoginRecorder;
     
     @Transactional
     public Map<String, Object> register(RegisterRequest request) {
@@ -36,7 +39,7 @@ public class AuthService {
         // Create new passenger (demonstrating polymorphism - saving as User)
         Passenger passenger = new Passenger();
         passenger.setEmail(request.getEmail());
-        passenger.setPassword(request.getPassword()); // In production, hash this!
+        passenger.setPassword(passwordHashingService.hash(request.getPassword()));
         passenger.setName(request.getName());
         passenger.setFirstName(request.getName().split(" ")[0]);
         passenger.setLastName(request.getName().contains(" ") ? 
@@ -48,6 +51,7 @@ public class AuthService {
         response.put("success", true);
         response.put("message", "Registration successful");
         response.put("user", createUserResponse(savedUser));
+        response.put("token", sessionService.createSession(savedUser));
         
         return response;
     }
@@ -66,8 +70,9 @@ public class AuthService {
         
         User user = userOpt.get();
         
-        // Simple password check (in production, use proper hashing!)
-        if (!user.getPassword().equals(request.getPassword())) {
+        PasswordHashingService.VerifyResult check =
+            passwordHashingService.verify(request.getPassword(), user.getPassword());
+        if (!check.matches()) {
             response.put("success", false);
             response.put("message", "Invalid password");
             return response;
@@ -75,15 +80,31 @@ public class AuthService {
         
         // Update last login
         user.updateLastLogin();
-        userRepository.save(user);
+        
+        // Upgrade legacy plaintext or under-cost hashes transparently (rare, so saved inline)
+        if (check.needsRehash()) {
+            user.setPassword(passwordHashingService.hash(request.getPassword()));
+            userRepository.save(user);
+        } else {
+            lastLoginRecorder.record(user.getId(), user.getUpdatedAt());
+        }
         
         response.put("success", true);
         response.put("message", "Login successful");
         response.put("user", createUserResponse(user));
+        response.put("token", sessionService.createSession(user));
         
         return response;
     }
     
+    public Map<String, Object> logout(String authorization) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", sessionService.invalidate(authorization)
+            ? "Logged out successfully" : "No active session");
+        return response;
+    }
+    
     private Map<String, Object> createUserResponse(User user) {
         Map<String, Object> userMap = new HashMap<>();
         userMap.put("id", user.getId());
@@ -0,0 +1,277 @@
+package com.skybook.service;
+
+import com.skybook.event.BookingEvent;
+import com.skybook.event.BookingEventHandler;
+import com.skybook.event.FlightDeletedEvent;
+import com.skybook.event.FlightSavedEvent;
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.model.Booking;
+import com.skybook.model.Flight;
+import com.skybook.repository.BookingRepository;
+import com.skybook.repository.FlightRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * BookingAnalyticsService - running totals for the admin dashboard
+ * Revenue and bookings per route and airline, seats sold per flight and
+ * bookings per status are LongAdders updated on every booking and
+ * cancellation, so reading them never touches bookings.json. They are
+ * rebuilt once at startup from a single streaming pass over the bookings,
+ * then kept current from the BookingEventBus. Bookings made by another
+ * instance sharing the storage don't reach our bus, so their commits mark
+ * the totals stale and the next summary rebuilds them. A rebuild fills
+ * fresh totals and swaps them in; changes that arrive while it scans are
+ * applied to the old totals and replayed onto the fresh ones, skipping
+ * bookings the scan already saw in that state.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingAnalyticsService implements BookingEventHandler {
+
+    private static final String CONFIRMED = "CONFIRMED";
+
+    private final BookingRepository bookingRepository;
+    private final FlightRepository flightRepository;
+
+    private volatile Totals totals = new Totals();
+    private volatile boolean stale = false;
+    // Held across the rebuild's file read, so not a monitor
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Orders changes against the swap; guards duringRebuild
+    private final ReentrantLock updateLock = new ReentrantLock();
+    // Changes made while a rebuild scans, replayed onto its fresh totals
+    private List<Consumer<Totals>> duringRebuild;
+
+    @PostConstruct
+    public void rebuild() {
+        long started = System.nanoTime();
+        stale = false;
+        Totals fresh = new Totals();
+        fresh.scanned = new HashMap<>();
+        updateLock.lock();
+        try {
+            duringRebuild = new ArrayList<>();
+        } finally {
+            updateLock.unlock();
+        }
+        long[] count = {0};
+        try {
+            flightRepository.forEach(flight -> true, fresh::trackFlight);
+            bookingRepository.forEachWithFlight(booking -> {
+                fresh.recordBooking(booking);
+                fresh.scanned.put(booking.getId(), booking.getStatus());
+                count[0]++;
+            });
+            updateLock.lock();
+            try {
+                duringRebuild.forEach(change -> change.accept(fresh));
+                fresh.scanned = null;
+                totals = fresh;
+            } finally {
+                updateLock.unlock();
+            }
+        } finally {
+            updateLock.lock();
+            try {
+                duringRebuild = null;
+            } finally {
+                updateLock.unlock();
+            }
+        }
+        System.out.println("✅ Booking analytics rebuilt from " + count[0] + " bookings in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + "ms");
+    }
+
+    @Override
+    public void onEvent(BookingEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == BookingEvent.Type.CONFIRMED) {
+            recordBooking(event.getBooking());
+        } else {
+            recordCancellation(event.getBooking(), event.getPreviousStatus());
+        }
+    }
+
+    /**
+     * Count a newly stored booking
+     */
+    public void recordBooking(Booking booking) {
+        update(current -> current.recordBooking(booking));
+    }
+
+    /**
+     * Move a booking from previousStatus to CANCELLED
+     */
+    public void recordCancellation(Booking booking, String previousStatus) {
+        update(current -> current.recordCancellation(booking, previousStatus));
+    }
+
+    @EventListener
+    public void onFlightSaved(FlightSavedEvent event) {
+        update(current -> current.trackFlight(event.getFlight()));
+    }
+
+    @EventListener
+    public void onFlightDeleted(FlightDeletedEvent event) {
+        update(current -> current.byFlight.remove(event.getFlightId()));
+    }
+
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (event.affects(BookingRepository.BOOKINGS_FILE) || event.affects(FlightRepository.FLIGHTS_FILE)) {
+            stale = true;
+        }
+    }
+
+    public Map<String, Object> getSummary() {
+        if (stale) {
+            rebuildLock.lock();
+            try {
+                if (stale) {
+                    rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        Totals current = totals;
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("routes", revenueRows(current.byRoute, "route"));
+        summary.put("airlines", revenueRows(current.byAirline, "airline"));
+
+        List<Map<String, Object>> flights = new ArrayList<>();
+        current.byFlight.forEach((id, load) -> {
+            long sold = load.soldSeats.sum();
+            long capacity = sold + Math.max(0, load.availableSeats);
+            Map<String, Object> row = new HashMap<>();
+            row.put("flightId", id);
+            row.put("flightNumber", load.flightNumber);
+            row.put("route", load.route);
+            row.put("seatsSold", sold);
+            row.put("seatsAvailable", load.availableSeats);
+            row.put("loadFactor", capacity > 0 ? (double) sold / capacity : 0.0);
+            flights.add(row);
+        });
+        flights.sort(Comparator.comparing(row -> (Long) row.get("flightId")));
+        summary.put("flights", flights);
+
+        Map<String, Long> statuses = new TreeMap<>();
+        current.byStatus.forEach((status, count) -> statuses.put(status, count.sum()));
+        summary.put("statuses", statuses);
+        return summary;
+    }
+
+    private static FlightLoad newLoad(Flight flight) {
+        FlightLoad load = new FlightLoad();
+        load.flightNumber = flight.getFlightNumber();
+        load.route = routeOf(flight);
+        load.availableSeats = flight.getAvailableSeats() != null ? flight.getAvailableSeats() : 0;
+        return load;
+    }
+
+    private void update(Consumer<Totals> change) {
+        updateLock.lock();
+        try {
+            change.accept(totals);
+            if (duringRebuild != null) {
+                duringRebuild.add(change);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private static String routeOf(Flight flight) {
+        return flight.getDepartureCity() + " → " + flight.getArrivalCity();
+    }
+
+    private static List<Map<String, Object>> revenueRows(Map<String, RevenueStats> stats, String keyName) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        stats.forEach((key, value) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put(keyName, key);
+            row.put("bookings", value.bookings.sum());
+            row.put("revenue", value.revenuePaise.sum() / 100.0);
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparing(row -> -(Double) row.get("revenue")));
+        return rows;
+    }
+
+    private static class Totals {
+        private final Map<String, RevenueStats> byRoute = new ConcurrentHashMap<>();
+        private final Map<String, RevenueStats> byAirline = new ConcurrentHashMap<>();
+        private final Map<Long, FlightLoad> byFlight = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+        // Status of each booking as a rebuild read it; only set while it runs
+        private Map<Long, String> scanned;
+
+        private void recordBooking(Booking booking) {
+            if (scanned != null && scanned.containsKey(booking.getId())) {
+                return;
+            }
+            status(booking.getStatus()).increment();
+            if (CONFIRMED.equals(booking.getStatus())) {
+                apply(booking, 1);
+            }
+        }
+
+        private void recordCancellation(Booking booking, String previousStatus) {
+            if (scanned != null && Objects.equals(scanned.get(booking.getId()), booking.getStatus())) {
+                return;
+            }
+            status(previousStatus).decrement();
+            status(booking.getStatus()).increment();
+            if (CONFIRMED.equals(previousStatus)) {
+                apply(booking, -1);
+            }
+        }
+
+        private void apply(Booking booking, int direction) {
+            Flight flight = booking.getFlight();
+            if (flight == null) {
+                return;
+            }
+            long paise = Math.round((booking.getTotalAmount() != null ? booking.getTotalAmount() : 0.0) * 100) * direction;
+            RevenueStats route = byRoute.computeIfAbsent(routeOf(flight), key -> new RevenueStats());
+            route.bookings.add(direction);
+            route.revenuePaise.add(paise);
+            RevenueStats airline = byAirline.computeIfAbsent(flight.getAirline(), key -> new RevenueStats());
+            airline.bookings.add(direction);
+            airline.revenuePaise.add(paise);
+            byFlight.computeIfAbsent(flight.getId(), id -> newLoad(flight)).soldSeats.add(direction);
+        }
+
+        private void trackFlight(Flight flight) {
+            FlightLoad load = byFlight.computeIfAbsent(flight.getId(), id -> newLoad(flight));
+            load.flightNumber = flight.getFlightNumber();
+            load.route = routeOf(flight);
+            load.availableSeats = flight.getAvailableSeats() != null ? flight.getAvailableSeats() : 0;
+        }
+
+        private LongAdder status(String status) {
+            return byStatus.computeIfAbsent(status != null ? status : "UNKNOWN", key -> new LongAdder());
+        }
+    }
+
+    private static class RevenueStats {
+        private final LongAdder bookings = new LongAdder();
+        private final LongAdder revenuePaise = new LongAdder();
+    }
+
+    private static class FlightLoad {
+        private final LongAdder soldSeats = new LongAdder();
+        private volatile String flightNumber;
+        private volatile String route;
+        private volatile int availableSeats;
+    }
+}
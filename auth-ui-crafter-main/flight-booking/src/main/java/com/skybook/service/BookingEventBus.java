@@ -0,0 +1,81 @@
+package com.skybook.service;
+
+import com.skybook.event.BookingEvent;
+import com.skybook.event.BookingEventHandler;
+import com.skybook.model.Booking;
+import com.skybook.util.RingBuffer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingEventBus - hands booking side effects to BookingEventHandlers
+ * BookingService publishes once the seat and booking are committed and
+ * returns; loyalty points, analytics and the like are applied by the
+ * handlers on their own threads, in batches. Events are lost if the
+ * process dies before a handler got to them (shutdown waits for them), so
+ * a handler whose effect must not be lost keeps its own record of what is
+ * done, as LoyaltyPointsHandler does with Booking.pointsCredited.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingEventBus {
+
+    private final List<BookingEventHandler> handlers;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${skybook.event-bus.ring-size:4096}")
+    private int ringSize;
+
+    @Value("${skybook.event-bus.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private RingBuffer<BookingEvent> ringBuffer;
+
+    @PostConstruct
+    public void init() {
+        ringBuffer = new RingBuffer<>(ringSize, BookingEvent::new);
+        for (BookingEventHandler handler : handlers) {
+            String name = "booking-events-" + handler.getClass().getSimpleName();
+            ringBuffer.addConsumer(name, handler);
+            Gauge.builder("skybook.booking.events.backlog", ringBuffer, ring -> ring.getBacklog(name))
+                .description("Booking events published but not yet handled")
+                .tag("handler", handler.getClass().getSimpleName())
+                .register(meterRegistry);
+        }
+        ringBuffer.start();
+        System.out.println("✅ Booking event bus started with " + handlers.size() + " handlers, "
+            + ringBuffer.getCapacity() + " slots");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!ringBuffer.shutdown(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            System.err.println("❌ Booking event handlers did not catch up before shutdown");
+        }
+    }
+
+    public void publishConfirmed(Booking booking) {
+        publish(BookingEvent.Type.CONFIRMED, booking, null);
+    }
+
+    public void publishCancelled(Booking booking, String previousStatus) {
+        publish(BookingEvent.Type.CANCELLED, booking, previousStatus);
+    }
+
+    private void publish(BookingEvent.Type type, Booking booking, String previousStatus) {
+        try {
+            ringBuffer.publish(event -> event.set(type, booking, previousStatus));
+        } catch (IllegalStateException e) {
+            // Shutting down - the booking itself is already committed
+            System.err.println("❌ Dropped " + type + " event for booking " + booking.getBookingReference() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.skybook.service;
 
 import com.skybook.dto.BookingRequest;
+import com.skybook.dto.GroupBookingRequest;
+import com.skybook.jfr.BookingStageEvent;
 import com.skybook.model.Booking;
 import com.skybook.model.Flight;
 import com.skybook.model.Passenger;
@@ -9,11 +11,25 @@ import com.skybook.model.payment.*;
 import com.skybook.repository.BookingRepository;
 import com.skybook.repository.FlightRepository;
 import com.skybook.repository.UserRepository;
+import com.skybook.service.payment.PaymentProcessor;
+import com.skybook.service.payment.PaymentResult;
+import com.skybook.util.Cursor;
+import com.skybook.util.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -26,28 +42,89 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final FlightRepository flightRepository;
     private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final PaymentProcessor paymentProcessor;
+    private final SeatHoldService seatHoldService;
+    private final IdGenerator idGenerator;
+    private final BookingEventBus bookingEvents;
+    private final MeterRegistry meterRegistry;
     
-    @Transactional
-    public Map<String, Object> createBooking(BookingRequest request) {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_BATCH_SIZE = 200;
+    
+    @Value("${skybook.booking.confirm-threads:8}")
+    private int confirmThreads;
+    
+    @Value("${skybook.booking.confirm-queue-capacity:256}")
+    private int confirmQueueCapacity;
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    // A stream the client stops reading for this long is cancelled, freeing its write thread
+    @Value("${skybook.streaming.idle-timeout-ms:30000}")
+    private long streamIdleTimeoutMs;
+    
+    // Writes bookings once payment completes, so a commit waiting on the
+    // storage lock doesn't keep a payment bulkhead thread busy
+    private ThreadPoolExecutor confirmExecutor;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory platformThreads = r -> {
+            Thread t = new Thread(r, "booking-confirm-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadFactory threads = virtualThreads
+            ? VirtualThreads.factory("booking-confirm-").orElse(platformThreads)
+            : platformThreads;
+        // When the queue is full the payment thread confirms itself - a paid booking is never dropped
+        confirmExecutor = new ThreadPoolExecutor(confirmThreads, confirmThreads, 30L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(confirmQueueCapacity), threads, new ThreadPoolExecutor.CallerRunsPolicy());
+        confirmExecutor.allowCoreThreadTimeOut(true);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        confirmExecutor.shutdown();
+        if (!confirmExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            System.err.println("❌ Booking confirmations still running at shutdown: " + confirmExecutor.getActiveCount());
+        }
+    }
+    
+    /**
+     * Validates the request on the calling thread, then hands payment to the
+     * PaymentProcessor; the booking is written once the payment completes
+     */
+    public CompletableFuture<Map<String, Object>> createBooking(BookingRequest request) {
         Map<String, Object> response = new HashMap<>();
+        Stage total = new Stage("total", request.getFlightId());
         
         // Get flight
         Optional<Flight> flightOpt = flightRepository.findById(request.getFlightId());
         if (flightOpt.isEmpty()) {
             response.put("success", false);
             response.put("message", "Flight not found");
-            return response;
+            return CompletableFuture.completedFuture(response);
         }
         
-        Flight flight = flightOpt.get();
-        
-        // Check availability
-        if (!flight.isAvailable()) {
+        // Hold a seat first so concurrent bookings can't pay for the same last seat
+        Stage holdStage = new Stage("hold", request.getFlightId());
+        Optional<SeatHold> holdOpt = flightOpt.get().isAvailable()
+            ? seatHoldService.hold(request.getFlightId(), 1)
+            : Optional.empty();
+        holdStage.end(holdOpt.isPresent() ? "held" : "no_seats");
+        if (holdOpt.isEmpty()) {
             response.put("success", false);
             response.put("message", "No seats available");
-            return response;
+            return CompletableFuture.completedFuture(response);
         }
         
+        SeatHold hold = holdOpt.get();
+        Flight flight = hold.getFlight();
+        
         // Get or create passenger
         Passenger passenger = getOrCreatePassenger(request);
         
@@ -56,22 +133,84 @@ public class BookingService {
         Double taxes = 500.0;
         Double totalAmount = finalPrice + taxes;
         
-        // Process payment using polymorphism
+        // Process payment using polymorphism, off the request thread
         Payment payment = createPaymentMethod(request);
-        boolean paymentSuccess = payment.processPayment(totalAmount);
+        Stage paymentStage = new Stage("payment", request.getFlightId());
+        StorageAccess.Usage usage = StorageAccess.current();
+        return paymentProcessor.process(payment, totalAmount)
+            .thenApplyAsync(result -> {
+                paymentStage.end(result.getStatus().name().toLowerCase());
+                if (!result.isApproved()) {
+                    seatHoldService.release(hold);
+                    return paymentFailed(result);
+                }
+                Stage confirmStage = new Stage("confirm", request.getFlightId());
+                // Runs on a confirm thread - still this request's storage work
+                Map<String, Object> confirmed = StorageAccess.callWith(usage,
+                    () -> confirmBooking(request, hold, passenger, payment, totalAmount));
+                confirmStage.end(outcomeOf(confirmed));
+                return confirmed;
+            }, confirmExecutor)
+            .whenComplete((bookingResponse, error) -> {
+                if (error != null) {
+                    seatHoldService.release(hold); // no-op unless still held
+                }
+                total.end(error != null ? "error" : outcomeOf(bookingResponse));
+            });
+    }
+    
+    /**
+     * skybook.booking.stage{stage, outcome} - hold, payment, confirm and end-to-end latency
+     */
+    private Timer stageTimer(String stage, String outcome) {
+        return Timer.builder("skybook.booking.stage")
+            .description("Time spent in each booking stage")
+            .tag("stage", stage)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+    
+    private static String outcomeOf(Map<String, Object> response) {
+        return Boolean.TRUE.equals(response.get("success")) ? "success" : "failed";
+    }
+    
+    /**
+     * Stage - times one booking stage as a Micrometer timer and a JFR event
+     */
+    private final class Stage {
+        private final String name;
+        private final Timer.Sample sample;
+        private final BookingStageEvent event = new BookingStageEvent();
         
-        if (!paymentSuccess) {
-            response.put("success", false);
-            response.put("message", "Payment failed");
-            return response;
+        Stage(String name, Long flightId) {
+            this.name = name;
+            this.sample = Timer.start(meterRegistry);
+            event.stage = name;
+            event.flightId = flightId != null ? flightId : 0L;
+            event.begin();
         }
         
+        void end(String outcome) {
+            sample.stop(stageTimer(name, outcome));
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+    
+    private Map<String, Object> confirmBooking(BookingRequest request, SeatHold hold, Passenger passenger,
+                                               Payment payment, Double totalAmount) {
+        Map<String, Object> response = new HashMap<>();
+        
         // Create booking
         Booking booking = new Booking();
         booking.setBookingReference(generateBookingReference());
         booking.setBookingDate(LocalDateTime.now()); // SET BOOKING DATE
         booking.setPassenger(passenger);
-        booking.setFlight(flight);
+        booking.setFlight(hold.getFlight());
         booking.setTotalAmount(totalAmount);
         booking.setPaymentMethod(payment.getPaymentMethod());
         booking.setTransactionId(payment.getTransactionId());
@@ -80,50 +219,223 @@ public class BookingService {
         booking.setPassengerEmail(request.getEmail());
         booking.setPassengerPhone(request.getPhone());
         booking.setStatus("CONFIRMED");
+        booking.setPointsCredited(false);
         
-        // Book seat
-        flight.bookSeat();
-        flightRepository.save(flight);
-        
-        // Add loyalty points
-        passenger.addLoyaltyPoints(totalAmount.intValue() / 100);
-        userRepository.save(passenger);
+        // Seat count, a new passenger and the booking are one commit;
+        // loyalty points and analytics follow on the BookingEventBus
+        Runnable writeBooking = () -> {
+            if (passenger.getId() == null) {
+                userRepository.save(passenger);
+            }
+            bookingRepository.save(booking);
+        };
         
-        Booking savedBooking = bookingRepository.save(booking);
+        try {
+            // Book seat - if the hold lapsed while paying, take any seat still free
+            if (!seatHoldService.confirm(hold, writeBooking)) {
+                Optional<SeatHold> retry = seatHoldService.hold(hold.getFlightId(), hold.getSeats());
+                if (retry.isEmpty() || !seatHoldService.confirm(retry.get(), writeBooking)) {
+                    retry.ifPresent(seatHoldService::release);
+                    paymentProcessor.refund(payment, totalAmount);
+                    response.put("success", false);
+                    response.put("message", "Seat hold expired and the flight is now full; payment refunded");
+                    return response;
+                }
+                hold = retry.get();
+            }
+        } catch (RuntimeException e) {
+            // Nothing was written, so don't keep the money either
+            paymentProcessor.refund(payment, totalAmount);
+            throw e;
+        }
+        booking.setFlight(hold.getFlight());
+        bookingEvents.publishConfirmed(booking);
         
         response.put("success", true);
         response.put("message", "Booking confirmed");
-        response.put("booking", convertToResponse(savedBooking));
+        response.put("booking", convertToResponse(booking));
         
         return response;
     }
     
+    private Map<String, Object> paymentFailed(PaymentResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", result.getMessage());
+        // Nothing was charged - clients may resend the same request
+        response.put("retryable", result.isRetryable());
+        return response;
+    }
+    
+    /**
+     * Book several passengers on one flight with one payment.
+     * Seats are held all-or-nothing, and users and bookings are each
+     * written in a single batch instead of once per passenger.
+     */
+    public CompletableFuture<Map<String, Object>> createGroupBooking(GroupBookingRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        int seats = request.getPassengers().size();
+        
+        Optional<Flight> flightOpt = flightRepository.findById(request.getFlightId());
+        if (flightOpt.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Flight not found");
+            return CompletableFuture.completedFuture(response);
+        }
+        
+        Stage holdStage = new Stage("group_hold", request.getFlightId());
+        Optional<SeatHold> holdOpt = seatHoldService.hold(request.getFlightId(), seats);
+        holdStage.end(holdOpt.isPresent() ? "held" : "no_seats");
+        if (holdOpt.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Not enough seats available for " + seats + " passengers");
+            return CompletableFuture.completedFuture(response);
+        }
+        
+        SeatHold hold = holdOpt.get();
+        Double amountPerSeat = hold.getFlight().calculateFinalPrice() + 500.0;
+        Double totalAmount = amountPerSeat * seats;
+        
+        GroupBookingRequest.PassengerDetails lead = request.getPassengers().get(0);
+        Payment payment = createPaymentMethod(request.getPaymentType(), request.getCardNumber(),
+            request.getCardExpiry(), request.getCardCvv(), lead.getFirstName() + " " + lead.getLastName(),
+            lead.getEmail(), lead.getPhone());
+        
+        Stage paymentStage = new Stage("group_payment", request.getFlightId());
+        StorageAccess.Usage usage = StorageAccess.current();
+        return paymentProcessor.process(payment, totalAmount)
+            .thenApplyAsync(result -> {
+                paymentStage.end(result.getStatus().name().toLowerCase());
+                if (!result.isApproved()) {
+                    seatHoldService.release(hold);
+                    return paymentFailed(result);
+                }
+                Stage confirmStage = new Stage("group_confirm", request.getFlightId());
+                Map<String, Object> confirmed = StorageAccess.callWith(usage,
+                    () -> confirmGroupBooking(request, hold, payment, amountPerSeat, totalAmount));
+                confirmStage.end(outcomeOf(confirmed));
+                return confirmed;
+            }, confirmExecutor)
+            .whenComplete((bookingResponse, error) -> {
+                if (error != null) {
+                    seatHoldService.release(hold); // no-op unless still held
+                }
+            });
+    }
+    
+    private Map<String, Object> confirmGroupBooking(GroupBookingRequest request, SeatHold hold, Payment payment,
+                                                    Double amountPerSeat, Double totalAmount) {
+        Map<String, Object> response = new HashMap<>();
+        Flight flight = hold.getFlight();
+        
+        // One read for every passenger; new ones are created in memory
+        Map<String, User> existing = userRepository.findAllByEmails(request.getPassengers().stream()
+            .map(GroupBookingRequest.PassengerDetails::getEmail)
+            .collect(Collectors.toSet()));
+        Map<String, Passenger> passengers = new LinkedHashMap<>();
+        
+        List<Booking> bookings = new ArrayList<>();
+        for (GroupBookingRequest.PassengerDetails details : request.getPassengers()) {
+            Passenger passenger = passengers.get(details.getEmail());
+            if (passenger == null) {
+                User user = existing.get(details.getEmail());
+                if (user instanceof Passenger) {
+                    passenger = (Passenger) user;
+                } else {
+                    passenger = new Passenger();
+                    passenger.setEmail(details.getEmail());
+                    passenger.setPassword(passwordHashingService.unusablePassword());
+                    passenger.setName(details.getFirstName() + " " + details.getLastName());
+                    passenger.setFirstName(details.getFirstName());
+                    passenger.setLastName(details.getLastName());
+                    passenger.setPhone(details.getPhone());
+                }
+                passengers.put(details.getEmail(), passenger);
+            }
+
+            Booking booking = new Booking();
+            booking.setBookingReference(generateBookingReference());
+            booking.setBookingDate(LocalDateTime.now());
+            booking.setPassenger(passenger);
+            booking.setFlight(flight);
+            booking.setTotalAmount(amountPerSeat);
+            booking.setPaymentMethod(payment.getPaymentMethod());
+            booking.setTransactionId(payment.getTransactionId());
+            booking.setPassengerFirstName(details.getFirstName());
+            booking.setPassengerLastName(details.getLastName());
+            booking.setPassengerEmail(details.getEmail());
+            booking.setPassengerPhone(details.getPhone());
+            booking.setStatus("CONFIRMED");
+            booking.setPointsCredited(false);
+            bookings.add(booking);
+        }
+        
+        // New passengers first so they have ids before the bookings reference them;
+        // seats, new passengers and bookings are committed together
+        List<Passenger> newPassengers = passengers.values().stream()
+            .filter(passenger -> passenger.getId() == null)
+            .collect(Collectors.toList());
+        boolean confirmed;
+        try {
+            confirmed = seatHoldService.confirm(hold, () -> {
+                if (!newPassengers.isEmpty()) {
+                    userRepository.saveAll(newPassengers);
+                }
+                bookingRepository.saveAll(bookings);
+            });
+        } catch (RuntimeException e) {
+            paymentProcessor.refund(payment, totalAmount);
+            throw e;
+        }
+        if (!confirmed) {
+            // The whole group lapsed; never seat only part of it
+            paymentProcessor.refund(payment, totalAmount);
+            response.put("success", false);
+            response.put("message", "Seat hold expired; payment refunded");
+            return response;
+        }
+        bookings.forEach(bookingEvents::publishConfirmed);
+        
+        response.put("success", true);
+        response.put("message", "Group booking confirmed for " + bookings.size() + " passengers");
+        response.put("totalAmount", totalAmount);
+        response.put("bookings", bookings.stream()
+            .map(this::convertToResponse)
+            .collect(Collectors.toList()));
+        return response;
+    }
+    
     /**
      * Demonstrates POLYMORPHISM - returns different payment implementations
      */
     private Payment createPaymentMethod(BookingRequest request) {
-        String paymentType = request.getPaymentType();
-        
+        return createPaymentMethod(request.getPaymentType(), request.getCardNumber(), request.getCardExpiry(),
+            request.getCardCvv(), request.getFirstName() + " " + request.getLastName(),
+            request.getEmail(), request.getPhone());
+    }
+    
+    private Payment createPaymentMethod(String paymentType, String cardNumber, String cardExpiry, String cardCvv,
+                                        String holderName, String email, String phone) {
         if ("CREDIT_CARD".equals(paymentType)) {
             return new CreditCardPayment(
-                request.getCardNumber(),
-                request.getFirstName() + " " + request.getLastName(),
-                request.getCardExpiry(),
-                request.getCardCvv()
+                cardNumber,
+                holderName,
+                cardExpiry,
+                cardCvv
             );
         } else if ("DEBIT_CARD".equals(paymentType)) {
             return new DebitCardPayment(
-                request.getCardNumber(),
-                request.getFirstName() + " " + request.getLastName(),
-                request.getCardExpiry(),
-                request.getCardCvv(),
+                cardNumber,
+                holderName,
+                cardExpiry,
+                cardCvv,
                 "SBI Bank"
             );
         } else {
             // Default to UPI
             return new UPIPayment(
-                request.getEmail() + "@upi",
-                request.getPhone()
+                email + "@upi",
+                phone
             );
         }
     }
@@ -138,13 +450,14 @@ public class BookingService {
         // Create new passenger
         Passenger passenger = new Passenger();
         passenger.setEmail(request.getEmail());
-        passenger.setPassword("temp123"); // Temporary password
+        passenger.setPassword(passwordHashingService.unusablePassword());
         passenger.setName(request.getFirstName() + " " + request.getLastName());
         passenger.setFirstName(request.getFirstName());
         passenger.setLastName(request.getLastName());
         passenger.setPhone(request.getPhone());
         
-        return (Passenger) userRepository.save(passenger);
+        // Saved together with the booking once payment goes through
+        return passenger;
     }
     
     @Transactional(readOnly = true)
@@ -155,6 +468,38 @@ public class BookingService {
             .collect(Collectors.toList());
     }
     
+    /**
+     * One page of the caller's bookings in id order; nextCursor is null on the last page
+     */
+    public Map<String, Object> getUserBookingsPage(String email, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Booking> bookings = bookingRepository.findPageByPassengerEmail(email, Cursor.decode(cursor), pageSize + 1);
+        
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", bookings.stream()
+            .limit(pageSize)
+            .map(this::convertToResponse)
+            .collect(Collectors.toList()));
+        page.put("nextCursor", bookings.size() > pageSize ? Cursor.encode(bookings.get(pageSize - 1).getId()) : null);
+        return page;
+    }
+    
+    /**
+     * Hand every booking of the caller to the sink, converting in small batches (for NDJSON export)
+     */
+    public void exportUserBookings(String email, Consumer<Map<String, Object>> sink) {
+        bookingRepository.streamByPassengerEmail(email, EXPORT_BATCH_SIZE,
+            batch -> batch.forEach(booking -> sink.accept(convertToResponse(booking))));
+    }
+    
+    /**
+     * All of the caller's bookings as a Flux, read in EXPORT_BATCH_SIZE batches on demand
+     */
+    public Flux<Map<String, Object>> streamUserBookings(String email) {
+        return bookingRepository.fluxByPassengerEmail(email, EXPORT_BATCH_SIZE).map(this::convertToResponse)
+            .timeout(Duration.ofMillis(streamIdleTimeoutMs));
+    }
+    
     @Transactional(readOnly = true)
     public Optional<Map<String, Object>> getBookingById(Long id) {
         return bookingRepository.findById(id)
@@ -179,20 +524,29 @@ public class BookingService {
         
         Booking booking = bookingOpt.get();
         
-        if (!booking.canBeCancelled()) {
+        // Checked again on a fresh read under the flight's lock, so concurrent
+        // cancels return the seat and publish the event only once
+        String[] previousStatus = new String[1];
+        Booking[] cancelled = new Booking[1];
+        boolean returned = booking.canBeCancelled()
+            && seatHoldService.returnSeats(booking.getFlight().getId(), 1, () -> {
+                Optional<Booking> current = bookingRepository.findById(id);
+                if (current.isEmpty() || !current.get().canBeCancelled()) {
+                    return false;
+                }
+                previousStatus[0] = current.get().getStatus();
+                current.get().cancel();
+                // Return seat to flight, committed together with the cancellation
+                bookingRepository.save(current.get());
+                cancelled[0] = current.get();
+                return true;
+            });
+        if (!returned) {
             response.put("success", false);
             response.put("message", "Booking cannot be cancelled");
             return response;
         }
-        
-        booking.cancel();
-        
-        // Return seat to flight
-        Flight flight = booking.getFlight();
-        flight.setAvailableSeats(flight.getAvailableSeats() + 1);
-        flightRepository.save(flight);
-        
-        bookingRepository.save(booking);
+        bookingEvents.publishCancelled(cancelled[0], previousStatus[0]);
         
         response.put("success", true);
         response.put("message", "Booking cancelled successfully");
@@ -225,6 +579,6 @@ public class BookingService {
     }
     
     private String generateBookingReference() {
-        return "BK" + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return idGenerator.nextBookingReference();
     }
 }
\ No newline at end of file
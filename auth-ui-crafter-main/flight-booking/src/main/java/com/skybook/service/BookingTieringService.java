@@ -0,0 +1,80 @@
+package com.skybook.service;
+
+import com.skybook.repository.BookingArchive;
+import com.skybook.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BookingTieringService - keeps bookings.json down to the bookings that can still change
+ * Cancelled and completed bookings older than min-age-days are moved to the
+ * archive in batches, so booking writes stop rewriting history.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingTieringService {
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+    // One run at a time; a lock rather than synchronized since runs do file I/O
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${skybook.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${skybook.archive.min-age-days:7}")
+    private long minAgeDays;
+
+    @Value("${skybook.archive.batch-size:5000}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${skybook.archive.initial-delay-ms:60000}",
+               fixedDelayString = "${skybook.archive.interval-ms:3600000}")
+    public void scheduledRun() {
+        if (enabled) {
+            archiveNow();
+        }
+    }
+
+    /**
+     * Archive everything currently eligible, one batch per unit of work
+     */
+    public Map<String, Object> archiveNow() {
+        runLock.lock();
+        try {
+            return archiveEligible();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private Map<String, Object> archiveEligible() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        int total = 0;
+        int archived;
+        do {
+            archived = bookingRepository.archiveInactive(cutoff, batchSize);
+            total += archived;
+        } while (archived == batchSize);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (total > 0) {
+            System.out.println("✅ Archived " + total + " inactive bookings in " + elapsedMs + "ms");
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("archived", total);
+        result.put("archivedTotal", bookingArchive.size());
+        result.put("bookedBefore", cutoff);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+}
@@ -0,0 +1,538 @@
+package com.skybook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skybook.dto.ChangeRecord;
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.exception.ChangeLogTruncatedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * ChangeLog - ordered, sequence-numbered log of entity inserts, updates and deletes
+ * Records are staged by the repositories inside the unit of work that
+ * writes the entity, carried in that commit's journal and appended here
+ * once the files are in place, so a sequence number is only ever visible
+ * after its change is, and a crash in between is finished on restart.
+ * Records that could not be appended are parked by FileStorageService and
+ * appended before any later ones; their sequences stay reserved meanwhile.
+ * The log is NDJSON segments under <storage>/changelog, named by their
+ * first sequence; old segments are dropped past max-segments. Readers
+ * resume from the last sequence they handled; the newest records are also
+ * kept in memory so readers that keep up never touch the disk. Instances
+ * sharing the storage directory append to the same log (one at a time,
+ * under the storage directory lock) and follow each other's appends with
+ * refresh().
+ */
+@Service
+@RequiredArgsConstructor
+public class ChangeLog {
+
+    private static final String SEGMENT_PREFIX = "changes-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${skybook.storage.path:./data}")
+    private String storagePath;
+
+    @Value("${skybook.changelog.segment-records:10000}")
+    private int segmentRecords;
+
+    @Value("${skybook.changelog.max-segments:20}")
+    private int maxSegments;
+
+    @Value("${skybook.changelog.recent-records:4096}")
+    private int recentRecords;
+
+    @Value("${skybook.changelog.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    // First sequence -> segment, oldest first
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    // Guards the tail: the newest segment, how far it has been read or
+    // written, and the channel appends go through
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Path tailSegment;
+    private long tailOffset;
+    private long tailRecords;
+    private Path currentSegmentPath;
+    private FileChannel currentSegment;
+
+    // Guards recent and assignedSequence; signalled on every append
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ArrayDeque<ChangeRecord> recent = new ArrayDeque<>();
+    private long assignedSequence;
+    // Highest sequence held by parked records; never handed out again
+    private long reservedSequence;
+    // Highest sequence that is durable in the log
+    private volatile long lastSequence;
+
+    private Counter recordsCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(logDir());
+        refresh();
+        assignedSequence = lastSequence;
+        recordsCounter = Counter.builder("skybook.changelog.records")
+            .description("Entity changes appended to the change log")
+            .register(meterRegistry);
+        Gauge.builder("skybook.changelog.sequence", this, ChangeLog::getLastSequence)
+            .description("Sequence of the newest durable change")
+            .register(meterRegistry);
+        System.out.println("✅ Change log at sequence " + lastSequence + " (" + segments.size() + " segments)");
+    }
+
+    @PreDestroy
+    public void close() {
+        subscriptions.forEach(Subscription::close);
+        appendLock.lock();
+        try {
+            if (currentSegment != null) {
+                currentSegment.close();
+                currentSegment = null;
+                currentSegmentPath = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not close change log segment: " + e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Another instance appended; wake local readers
+     */
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (!event.affects(FileStorageService.CHANGES_KEY)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not refresh change log: " + e.getMessage());
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Oldest sequence still retained, or the next one if the log is empty
+     */
+    public long getOldestSequence() {
+        return segments.isEmpty() ? lastSequence + 1 : segments.firstKey();
+    }
+
+    /**
+     * Number the records; called by the storage commit under its write lock,
+     * so sequences are handed out in commit order
+     */
+    void assign(List<ChangeRecord> records) {
+        lock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (ChangeRecord record : records) {
+                record.setSequence(++assignedSequence);
+                record.setTimestamp(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back sequences assigned to a commit that failed before its journal
+     * was durable, so the log has no gaps
+     */
+    void release() {
+        lock.lock();
+        try {
+            assignedSequence = Math.max(lastSequence, reservedSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Keep sequences up to this one taken: they belong to committed records
+     * waiting to be appended
+     */
+    void reserve(long sequence) {
+        lock.lock();
+        try {
+            reservedSequence = Math.max(reservedSequence, sequence);
+            assignedSequence = Math.max(assignedSequence, sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append numbered records and fsync them. Records at or below the last
+     * sequence are already in the log (a journal replayed after a crash that
+     * came after the append) and are skipped.
+     */
+    void append(List<ChangeRecord> records) throws IOException {
+        List<ChangeRecord> missing = new ArrayList<>();
+        for (ChangeRecord record : records) {
+            if (record.getSequence() > lastSequence) {
+                missing.add(record);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ChangeRecord record : missing) {
+            out.write(objectMapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        appendLock.lock();
+        try {
+            if (tailSegment == null || tailRecords >= segmentRecords) {
+                rollSegment(missing.get(0).getSequence());
+            } else if (!tailSegment.equals(currentSegmentPath)) {
+                openCurrentSegment(tailSegment);
+            }
+            // Cut off a record torn by a writer that crashed mid-append
+            if (currentSegment.size() > tailOffset) {
+                System.err.println("Warning: dropping incomplete change log tail of " + tailSegment.getFileName());
+                currentSegment.truncate(tailOffset);
+            }
+            currentSegment.position(tailOffset);
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+                while (buffer.hasRemaining()) {
+                    currentSegment.write(buffer);
+                }
+                currentSegment.force(false);
+            } catch (IOException e) {
+                // Leave no partial record for the next append to follow
+                currentSegment.truncate(tailOffset);
+                throw e;
+            }
+            tailOffset += out.size();
+            tailRecords += missing.size();
+            publish(missing);
+        } finally {
+            appendLock.unlock();
+        }
+        recordsCounter.increment(missing.size());
+    }
+
+    /**
+     * Pick up records appended since the last look - at startup, or by another
+     * instance sharing the directory. A torn record at the end is left alone
+     * for the next append to cut off.
+     */
+    public void refresh() throws IOException {
+        appendLock.lock();
+        try {
+            NavigableMap<Long, Path> found = new TreeMap<>();
+            try (Stream<Path> files = Files.list(logDir())) {
+                files.forEach(file -> {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        found.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), file);
+                    }
+                });
+            }
+            segments.keySet().retainAll(found.keySet());
+            segments.putAll(found);
+            if (found.isEmpty()) {
+                return;
+            }
+            Map.Entry<Long, Path> last = found.lastEntry();
+            if (!last.getValue().equals(tailSegment)) {
+                tailSegment = last.getValue();
+                tailOffset = 0;
+                tailRecords = 0;
+                if (last.getKey() - 1 > lastSequence) {
+                    setLastSequence(last.getKey() - 1);
+                }
+            }
+            List<ChangeRecord> records = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(tailSegment, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size <= tailOffset) {
+                    return;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate((int) (size - tailOffset));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, tailOffset + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                byte[] bytes = buffer.array();
+                int lineStart = 0;
+                for (int i = 0; i < buffer.position(); i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    try {
+                        records.add(objectMapper.readValue(bytes, lineStart, i - lineStart, ChangeRecord.class));
+                    } catch (IOException e) {
+                        break;
+                    }
+                    lineStart = i + 1;
+                }
+                tailOffset += lineStart;
+                tailRecords += records.size();
+            } catch (NoSuchFileException e) {
+                // Dropped by retention in the meantime; the next refresh sees the newer segments
+                return;
+            }
+            records.removeIf(record -> record.getSequence() <= lastSequence);
+            if (!records.isEmpty()) {
+                publish(records);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Up to limit records with a sequence above afterSequence, oldest first
+     * @throws ChangeLogTruncatedException if records after it were already dropped
+     */
+    public List<ChangeRecord> read(long afterSequence, int limit) {
+        long upTo = lastSequence;
+        if (afterSequence >= upTo || limit <= 0) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            if (!recent.isEmpty() && recent.peekFirst().getSequence() <= afterSequence + 1) {
+                List<ChangeRecord> batch = new ArrayList<>(Math.min(limit, recent.size()));
+                for (ChangeRecord record : recent) {
+                    if (batch.size() >= limit || record.getSequence() > upTo) {
+                        break;
+                    }
+                    if (record.getSequence() > afterSequence) {
+                        batch.add(record);
+                    }
+                }
+                return batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return readSegments(afterSequence, upTo, limit);
+    }
+
+    /**
+     * Like read(), but when nothing is newer waits up to waitMs (capped at
+     * max-wait-ms) for the next append
+     */
+    public List<ChangeRecord> await(long afterSequence, int limit, long waitMs) throws InterruptedException {
+        if (lastSequence <= afterSequence && waitMs > 0) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(Math.min(waitMs, maxWaitMs));
+            lock.lock();
+            try {
+                while (lastSequence <= afterSequence && remaining > 0) {
+                    remaining = appended.awaitNanos(remaining);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return read(afterSequence, limit);
+    }
+
+    /**
+     * Deliver every change after afterSequence to the listener, in order, on
+     * its own thread until the subscription is closed. A listener that
+     * throws stops the subscription; getPosition() says where to resume.
+     */
+    public Subscription subscribe(String name, long afterSequence, Consumer<ChangeRecord> listener) {
+        Subscription subscription = new Subscription(name, afterSequence, listener);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    private List<ChangeRecord> readSegments(long afterSequence, long upTo, int limit) {
+        long oldest = getOldestSequence();
+        if (afterSequence + 1 < oldest) {
+            throw new ChangeLogTruncatedException(afterSequence, oldest);
+        }
+        Long from = segments.floorKey(afterSequence + 1);
+        List<ChangeRecord> batch = new ArrayList<>();
+        for (Path segment : segments.tailMap(from != null ? from : oldest, true).values()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ChangeRecord record;
+                    try {
+                        record = objectMapper.readValue(line, ChangeRecord.class);
+                    } catch (IOException e) {
+                        // A record still being appended
+                        break;
+                    }
+                    if (record.getSequence() > upTo) {
+                        return batch;
+                    }
+                    if (record.getSequence() > afterSequence) {
+                        batch.add(record);
+                        if (batch.size() >= limit) {
+                            return batch;
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // Dropped by retention while we were reading
+                throw new ChangeLogTruncatedException(afterSequence, getOldestSequence());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read change log segment " + segment.getFileName(), e);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Make records visible to readers; caller holds appendLock
+     */
+    private void publish(List<ChangeRecord> records) {
+        lock.lock();
+        try {
+            // The in-memory tail must stay gap-free, or reads from it would skip records
+            if (!recent.isEmpty() && recent.peekLast().getSequence() + 1 != records.get(0).getSequence()) {
+                recent.clear();
+            }
+            for (ChangeRecord record : records) {
+                recent.addLast(record);
+                if (recent.size() > recentRecords) {
+                    recent.removeFirst();
+                }
+            }
+            setLastSequence(records.get(records.size() - 1).getSequence());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setLastSequence(long sequence) {
+        lock.lock();
+        try {
+            lastSequence = sequence;
+            assignedSequence = Math.max(assignedSequence, sequence);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openCurrentSegment(Path segment) throws IOException {
+        if (currentSegment != null) {
+            currentSegment.close();
+        }
+        currentSegment = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        currentSegmentPath = segment;
+    }
+
+    private void rollSegment(long firstSequence) throws IOException {
+        Path segment = logDir().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        openCurrentSegment(segment);
+        currentSegment.truncate(0);
+        tailSegment = segment;
+        tailOffset = 0;
+        tailRecords = 0;
+        segments.put(firstSequence, segment);
+        while (segments.size() > maxSegments) {
+            Map.Entry<Long, Path> oldest = segments.pollFirstEntry();
+            Files.deleteIfExists(oldest.getValue());
+            System.out.println("✅ Dropped change log segment " + oldest.getValue().getFileName());
+        }
+    }
+
+    private Path logDir() {
+        return Paths.get(storagePath, "changelog");
+    }
+
+    /**
+     * Subscription - one listener following the log from a sequence
+     */
+    public class Subscription implements AutoCloseable {
+        private final String name;
+        private final Consumer<ChangeRecord> listener;
+        private final Thread thread;
+        private volatile long position;
+        private volatile boolean running = true;
+
+        Subscription(String name, long afterSequence, Consumer<ChangeRecord> listener) {
+            this.name = name;
+            this.position = afterSequence;
+            this.listener = listener;
+            this.thread = new Thread(this::run, "changelog-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Sequence of the last change handed to the listener
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            thread.interrupt();
+            subscriptions.remove(this);
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    for (ChangeRecord record : await(position, 500, 1000)) {
+                        listener.accept(record);
+                        position = record.getSequence();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Change log subscription " + name + " stopped at " + position + ": " + e.getMessage());
+            } finally {
+                running = false;
+                subscriptions.remove(this);
+            }
+        }
+    }
+}
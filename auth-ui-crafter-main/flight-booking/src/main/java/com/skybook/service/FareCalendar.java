@@ -0,0 +1,199 @@
+package com.skybook.service;
+
+import com.skybook.model.Flight;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FareCalendar - cheapest bookable fare per route and day
+ * Updated one flight at a time, so building a calendar never scans flights.json.
+ * Flights without a departure date operate daily and count for every day.
+ */
+class FareCalendar {
+
+    private final Map<String, RouteFares> routes = new HashMap<>();
+    private final Map<Long, String> routeByFlight = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void update(Flight flight) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(flight.getId());
+            if (!flight.isAvailable()) {
+                return; // Sold out flights drop out of the calendar
+            }
+            String key = routeKey(flight.getDepartureCity(), flight.getArrivalCity());
+            routes.computeIfAbsent(key, k -> new RouteFares(flight.getDepartureCity(), flight.getArrivalCity()))
+                  .put(flight.getId(), flight.getDepartureDate(), flight.calculateFinalPrice());
+            routeByFlight.put(flight.getId(), key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long flightId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(flightId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rebuild(Collection<Flight> flights) {
+        lock.writeLock().lock();
+        try {
+            routes.clear();
+            routeByFlight.clear();
+            flights.forEach(this::update);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Minimum fares for every day in [start, end]; from/to may be null to match all routes
+     */
+    List<Map<String, Object>> query(String from, String to, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (RouteFares route : routes.values()) {
+                if (from != null && !route.departureCity.equalsIgnoreCase(from)) {
+                    continue;
+                }
+                if (to != null && !route.arrivalCity.equalsIgnoreCase(to)) {
+                    continue;
+                }
+                Map<String, Object> routeMap = new HashMap<>();
+                routeMap.put("from", route.departureCity);
+                routeMap.put("to", route.arrivalCity);
+                routeMap.put("fares", route.faresBetween(start, end));
+                result.add(routeMap);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long flightId) {
+        String key = routeByFlight.remove(flightId);
+        if (key == null) {
+            return;
+        }
+        RouteFares route = routes.get(key);
+        if (route != null && route.remove(flightId)) {
+            routes.remove(key);
+        }
+    }
+
+    private static String routeKey(String from, String to) {
+        return from.toLowerCase() + "|" + to.toLowerCase();
+    }
+
+    /**
+     * Fares for one route: daily schedules plus a sorted map of dated departures
+     */
+    private static class RouteFares {
+        private final String departureCity;
+        private final String arrivalCity;
+        private final DayFares daily = new DayFares();
+        private final NavigableMap<LocalDate, DayFares> dated = new TreeMap<>();
+        private final Map<Long, LocalDate> dateByFlight = new HashMap<>();
+
+        RouteFares(String departureCity, String arrivalCity) {
+            this.departureCity = departureCity;
+            this.arrivalCity = arrivalCity;
+        }
+
+        void put(Long flightId, LocalDate date, Double fare) {
+            if (date == null) {
+                daily.put(flightId, fare);
+            } else {
+                dated.computeIfAbsent(date, d -> new DayFares()).put(flightId, fare);
+                dateByFlight.put(flightId, date);
+            }
+        }
+
+        /**
+         * @return true when the route no longer has any fares
+         */
+        boolean remove(Long flightId) {
+            LocalDate date = dateByFlight.remove(flightId);
+            if (date == null) {
+                daily.remove(flightId);
+            } else {
+                DayFares day = dated.get(date);
+                if (day != null) {
+                    day.remove(flightId);
+                    if (day.isEmpty()) {
+                        dated.remove(date);
+                    }
+                }
+            }
+            return daily.isEmpty() && dated.isEmpty();
+        }
+
+        List<Map<String, Object>> faresBetween(LocalDate start, LocalDate end) {
+            List<Map<String, Object>> fares = new ArrayList<>();
+            NavigableMap<LocalDate, DayFares> inRange = dated.subMap(start, true, end, true);
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                DayFares day = inRange.get(date);
+                Long flightId = daily.minFlightId;
+                double minFare = daily.minFare;
+                if (day != null && day.minFare < minFare) {
+                    flightId = day.minFlightId;
+                    minFare = day.minFare;
+                }
+                if (flightId == null) {
+                    continue;
+                }
+                Map<String, Object> fare = new HashMap<>();
+                fare.put("date", date.toString());
+                fare.put("minFare", minFare);
+                fare.put("flightId", flightId);
+                fares.add(fare);
+            }
+            return fares;
+        }
+    }
+
+    /**
+     * Fares departing on one day with the cheapest one cached
+     */
+    private static class DayFares {
+        private final Map<Long, Double> fares = new HashMap<>();
+        private Long minFlightId;
+        private double minFare = Double.MAX_VALUE;
+
+        void put(Long flightId, Double fare) {
+            fares.put(flightId, fare);
+            if (fare < minFare) {
+                minFare = fare;
+                minFlightId = flightId;
+            }
+        }
+
+        void remove(Long flightId) {
+            fares.remove(flightId);
+            if (flightId.equals(minFlightId)) {
+                // Only the day's own flights are rescanned, never the whole catalog
+                minFlightId = null;
+                minFare = Double.MAX_VALUE;
+                fares.forEach((id, fare) -> {
+                    if (fare < minFare) {
+                        minFare = fare;
+                        minFlightId = id;
+                    }
+                });
+            }
+        }
+
+        boolean isEmpty() {
+            return fares.isEmpty();
+        }
+    }
+}
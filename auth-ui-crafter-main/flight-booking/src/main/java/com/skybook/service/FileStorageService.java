@@ -1,28 +1,123 @@
 package com.skybook.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.skybook.dto.ChangeRecord;
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.jfr.StorageCommitEvent;
+import com.skybook.jfr.StorageReadEvent;
+import com.skybook.jfr.StorageWriteEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
+/**
+ * FileStorageService - JSON file per collection
+ * Writes can be grouped with inUnitOfWork(): saves made inside it are
+ * staged in memory (and visible to that thread's own loads), then committed
+ * together - one fsynced journal, then an fsynced write aside and atomic
+ * rename per file; the journal is only dropped once the directory holding
+ * those renames is synced too. A failure before the journal is durable
+ * leaves every file untouched; a crash after it is rolled forward from the
+ * journal on the next start. Entity changes
+ * recorded with recordChange() travel in the same journal and reach the
+ * ChangeLog only after their files are in place. That append is after the
+ * commit, so it never fails one: if the log can't take the records, the
+ * journal is kept under _pending-changes and appended, oldest first, before
+ * any later records - on the next commit or the next start.
+ *
+ * With skybook.storage.shared, several instances can use one directory: a
+ * unit of work also holds an OS file lock on _lock, so one instance commits
+ * at a time and read-modify-write cycles don't interleave across processes.
+ * Every commit bumps the collections' stamps in _versions.json; a stamp
+ * newer than the last one this instance saw means another instance wrote
+ * that collection, which is checked on taking the lock and by the
+ * SharedStorageWatcher. Caches compare getExternalVersion() or listen for
+ * StorageChangedEvent.
+ */
 @Service
 public class FileStorageService {
 
+    private static final String JOURNAL_FILE = "_journal.json";
+    private static final String LOCK_FILE = "_lock";
+    public static final String VERSION_STAMPS_FILE = "_versions.json";
+    // Journal entry holding the commit's change records, and their stamp; never a collection name
+    public static final String CHANGES_KEY = "_changes";
+    // Journals of commits whose change records are not in the ChangeLog yet
+    private static final String PENDING_CHANGES_DIR = "_pending-changes";
+    private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
     @Value("${skybook.storage.path:./data}")
     private String storagePath;
 
+    @Value("${skybook.storage.shared:false}")
+    private boolean shared;
+
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<String> sizeGauges = ConcurrentHashMap.newKeySet();
+
+    // Readers share; a unit of work holds the write lock from start to commit
+    private final ReentrantReadWriteLock storageLock = new ReentrantReadWriteLock();
+    private final ThreadLocal<UnitOfWork> currentUnitOfWork = new ThreadLocal<>();
 
-    public FileStorageService() {
+    // Shared directory only: the lock file's channel (used under the write lock)
+    // and the stamps as of this instance's last look
+    private FileChannel lockChannel;
+    private final ReentrantLock stampLock = new ReentrantLock();
+    private VersionStamps seenStamps = new VersionStamps();
+    private final Map<String, Long> externalVersions = new ConcurrentHashMap<>();
+
+    // Whether _pending-changes may hold journals; checked on start (used under the write lock)
+    private boolean pendingChanges = true;
+
+    public FileStorageService(MeterRegistry meterRegistry, ChangeLog changeLog, ApplicationEventPublisher eventPublisher) {
+        this.meterRegistry = meterRegistry;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         
@@ -53,24 +148,139 @@ public class FileStorageService {
             e.printStackTrace();
             throw new RuntimeException("Could not create storage directory", e);
         }
+        FileLock directoryLock = lockSharedDirectory();
+        try {
+            if (shared) {
+                // Before recovery, which bumps the stamps from here
+                stampLock.lock();
+                try {
+                    seenStamps = readStamps();
+                } finally {
+                    stampLock.unlock();
+                }
+                System.out.println("✅ Shared storage directory, at version " + seenStamps.version);
+            }
+            recoverJournal();
+            appendPendingChanges();
+        } finally {
+            releaseSharedDirectory(directoryLock);
+        }
     }
 
-    public void save(String fileName, Object data) {
-        System.out.println("Saving to file: " + fileName);
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * How many times another instance has been seen changing the collection;
+     * a cache built at one value is stale once it moves
+     */
+    public long getExternalVersion(String collection) {
+        return externalVersions.getOrDefault(collection, 0L);
+    }
+
+    /**
+     * Look for commits by other instances and publish a StorageChangedEvent
+     * for them. Don't call it from inside a unit of work.
+     */
+    public void pollExternalChanges() {
+        publishExternalChanges(checkExternalChanges());
+    }
+
+    /**
+     * Run the work as one unit: all saves inside it are committed together
+     * or, if it throws, not at all. Nested calls join the outer unit.
+     */
+    public <T> T inUnitOfWork(Supplier<T> work) {
+        if (currentUnitOfWork.get() != null) {
+            return work.get();
+        }
+        UnitOfWork unitOfWork = new UnitOfWork();
+        T result;
+        Set<String> external = new TreeSet<>();
+        storageLock.writeLock().lock();
+        FileLock directoryLock = null;
         try {
-            File file = new File(storagePath + "/" + fileName + ".json");
-            System.out.println("Full file path: " + file.getAbsolutePath());
-            objectMapper.writeValue(file, data);
-            System.out.println("✅ Successfully saved: " + fileName + ".json");
-        } catch (IOException e) {
-            System.err.println("❌ Failed to save data to file: " + fileName);
-            e.printStackTrace();
-            throw new RuntimeException("Failed to save data to file: " + fileName, e);
+            directoryLock = lockSharedDirectory();
+            if (directoryLock != null) {
+                external.addAll(checkExternalChanges());
+                // A journal found while we hold the lock is from an instance that died mid-commit
+                external.addAll(recoverJournal());
+            }
+            currentUnitOfWork.set(unitOfWork);
+            result = work.get();
+            commit(unitOfWork);
+        } finally {
+            currentUnitOfWork.remove();
+            releaseSharedDirectory(directoryLock);
+            storageLock.writeLock().unlock();
+            // Published with no lock held, so listeners are free to read storage
+            publishExternalChanges(external);
+        }
+        unitOfWork.afterCommit.forEach(Runnable::run);
+        return result;
+    }
+
+    public void runInUnitOfWork(Runnable work) {
+        inUnitOfWork(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run once the current unit of work has committed (immediately if there is none)
+     */
+    public void afterCommit(Runnable action) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null) {
+            unitOfWork.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    public void save(String fileName, Object data) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null) {
+            // Snapshot now so later changes to the caller's objects don't leak in
+            unitOfWork.staged.put(fileName, objectMapper.valueToTree(data));
+            return;
+        }
+        runInUnitOfWork(() -> save(fileName, data));
+    }
+
+    /**
+     * Record an entity change for the change log, committed with the current
+     * unit of work; data is snapshotted now, minus any omitted fields
+     */
+    public void recordChange(String entity, ChangeRecord.Op op, Long id, Object data, String... omittedFields) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork == null) {
+            throw new IllegalStateException("Changes must be recorded inside the unit of work that writes them");
         }
+        JsonNode snapshot = null;
+        if (data != null) {
+            snapshot = objectMapper.valueToTree(data);
+            if (snapshot instanceof ObjectNode && omittedFields.length > 0) {
+                ((ObjectNode) snapshot).remove(Arrays.asList(omittedFields));
+            }
+        }
+        unitOfWork.changes.add(new ChangeRecord(0, null, entity, id, op, snapshot));
     }
 
     public <T> List<T> loadList(String fileName, Class<T> clazz) {
         System.out.println("Loading list from file: " + fileName);
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null && unitOfWork.staged.containsKey(fileName)) {
+            JsonNode node = unitOfWork.staged.get(fileName);
+            return node.isNull() ? new ArrayList<>() : objectMapper.convertValue(node,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, clazz));
+        }
+        long started = System.nanoTime();
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
+        storageLock.readLock().lock();
         try {
             File file = new File(storagePath + "/" + fileName + ".json");
             System.out.println("Checking file: " + file.getAbsolutePath());
@@ -83,35 +293,654 @@ public class FileStorageService {
             List<T> result = objectMapper.readValue(file, 
                 objectMapper.getTypeFactory().constructCollectionType(List.class, clazz));
             System.out.println("✅ Loaded " + result.size() + " items from " + fileName);
+            recordRead(event, fileName, "loadList", started, file.length(), result.size());
             return result;
         } catch (IOException e) {
-            System.err.println("Warning: Could not read " + fileName + ".json, creating fresh file. Error: " + e.getMessage());
-            e.printStackTrace();
-            File file = new File(storagePath + "/" + fileName + ".json");
-            file.delete();
-            return new ArrayList<>();
+            // Never treat an unreadable file as empty: the next save would overwrite what is in it
+            System.err.println("❌ Could not read " + fileName + ".json: " + e.getMessage());
+            throw new UncheckedIOException("Could not read " + fileName + ".json", e);
+        } finally {
+            storageLock.readLock().unlock();
         }
     }
 
+    /**
+     * Visit every element of a list file one at a time, without holding the
+     * whole list in memory. Files are only ever replaced by rename, so the
+     * stream opened under the lock stays a consistent snapshot after it is released.
+     * A file that can't be read or parsed throws UncheckedIOException rather
+     * than looking like a short list.
+     */
+    public <T> void forEach(String fileName, Class<T> clazz, Consumer<T> action) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null && unitOfWork.staged.containsKey(fileName)) {
+            JsonNode node = unitOfWork.staged.get(fileName);
+            node.forEach(element -> action.accept(objectMapper.convertValue(element, clazz)));
+            return;
+        }
+        long started = System.nanoTime();
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
+        Path path = Paths.get(storagePath, fileName + ".json");
+        InputStream in;
+        long bytes;
+        storageLock.readLock().lock();
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            bytes = Files.size(path);
+            in = Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + fileName + ".json", e);
+        } finally {
+            storageLock.readLock().unlock();
+        }
+        int records = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                action.accept(objectMapper.readValue(parser, clazz));
+                records++;
+            }
+            recordRead(event, fileName, "forEach", started, bytes, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not stream " + fileName + ".json", e);
+        }
+    }
+
+    /**
+     * Reactive forEach: each element is parsed only when the subscriber asks
+     * for it, on the bounded elastic scheduler, so a slow consumer slows the
+     * parse down instead of buffering the file or holding a request thread
+     * (the write to the client still blocks a streaming thread, see StreamingConfig).
+     */
+    public <T> Flux<T> flux(String fileName, Class<T> clazz) {
+        return Flux.<T, ParserState>generate(() -> openParser(fileName), (state, sink) -> {
+            try {
+                if (state.parser != null && state.parser.nextToken() == JsonToken.START_OBJECT) {
+                    sink.next(objectMapper.readValue(state.parser, clazz));
+                    state.records++;
+                } else {
+                    if (state.parser != null) {
+                        recordRead(state.event, fileName, "flux", state.started, state.bytes, state.records);
+                    }
+                    sink.complete();
+                }
+            } catch (IOException e) {
+                sink.error(new UncheckedIOException("Could not stream " + fileName + ".json", e));
+            }
+            return state;
+        }, ParserState::close).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Open a list file positioned on its opening bracket; parser is null if
+     * the file is missing or not a list. Opened under the read lock, read without it.
+     */
+    private ParserState openParser(String fileName) throws IOException {
+        ParserState state = new ParserState();
+        state.event.begin();
+        Path path = Paths.get(storagePath, fileName + ".json");
+        storageLock.readLock().lock();
+        try {
+            if (!Files.exists(path)) {
+                return state;
+            }
+            state.bytes = Files.size(path);
+            state.parser = objectMapper.getFactory().createParser(Files.newInputStream(path));
+        } finally {
+            storageLock.readLock().unlock();
+        }
+        try {
+            if (state.parser.nextToken() != JsonToken.START_ARRAY) {
+                state.close();
+            }
+        } catch (IOException e) {
+            state.close();
+            throw e;
+        }
+        return state;
+    }
+
+    /**
+     * Keyset page: the first `limit` matching elements with id greater than
+     * afterId, in id order. One streaming pass, memory bounded by the limit.
+     */
+    public <T, R> List<R> scanPage(String fileName, Class<T> clazz, Function<T, R> mapper, Predicate<R> filter,
+                                   ToLongFunction<R> idOf, long afterId, int limit) {
+        // Max-heap on id holding the smallest ids seen so far
+        PriorityQueue<R> page = new PriorityQueue<>(limit + 1, Comparator.comparingLong(idOf).reversed());
+        forEach(fileName, clazz, element -> {
+            R item = mapper.apply(element);
+            long id = idOf.applyAsLong(item);
+            if (id <= afterId || (page.size() == limit && id >= idOf.applyAsLong(page.peek()))) {
+                return;
+            }
+            if (filter.test(item)) {
+                page.add(item);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        });
+        List<R> result = new ArrayList<>(page);
+        result.sort(Comparator.comparingLong(idOf));
+        return result;
+    }
+
     public <T> T load(String fileName, Class<T> clazz) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null && unitOfWork.staged.containsKey(fileName)) {
+            JsonNode node = unitOfWork.staged.get(fileName);
+            return node.isNull() ? null : objectMapper.convertValue(node, clazz);
+        }
+        long started = System.nanoTime();
+        StorageReadEvent event = new StorageReadEvent();
+        event.begin();
+        storageLock.readLock().lock();
         try {
             File file = new File(storagePath + "/" + fileName + ".json");
             if (!file.exists()) {
                 return null;
             }
-            return objectMapper.readValue(file, clazz);
+            T result = objectMapper.readValue(file, clazz);
+            recordRead(event, fileName, "load", started, file.length(), 1);
+            return result;
         } catch (IOException e) {
             System.err.println("Warning: Could not read " + fileName + ".json. Error: " + e.getMessage());
             File file = new File(storagePath + "/" + fileName + ".json");
             file.delete();
             return null;
+        } finally {
+            storageLock.readLock().unlock();
         }
     }
 
     public void delete(String fileName) {
-        File file = new File(storagePath + "/" + fileName + ".json");
-        if (file.exists()) {
-            file.delete();
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null) {
+            unitOfWork.staged.put(fileName, NullNode.getInstance());
+            return;
+        }
+        runInUnitOfWork(() -> delete(fileName));
+    }
+
+    /**
+     * A single file skips the journal: write aside, fsync, rename over.
+     * Several files, or any entity changes, are written to the journal first
+     * so they land together.
+     */
+    private void commit(UnitOfWork unitOfWork) {
+        if (unitOfWork.staged.isEmpty() && unitOfWork.changes.isEmpty()) {
+            return;
+        }
+        boolean journaled = unitOfWork.staged.size() > 1 || !unitOfWork.changes.isEmpty();
+        long started = System.nanoTime();
+        StorageCommitEvent event = new StorageCommitEvent();
+        event.begin();
+        event.collections = String.join(",", unitOfWork.staged.keySet());
+        event.collectionCount = unitOfWork.staged.size();
+        event.journaled = journaled;
+        Path journal = Paths.get(storagePath, JOURNAL_FILE);
+        long written;
+        try {
+            if (journaled) {
+                if (Files.exists(journal)) {
+                    // Left by a commit that could not finish; replay it before it is overwritten
+                    recoverJournal();
+                }
+                ObjectNode entries = objectMapper.createObjectNode();
+                unitOfWork.staged.forEach(entries::set);
+                if (shared && !unitOfWork.changes.isEmpty()) {
+                    // Continue after whatever other instances appended
+                    changeLog.refresh();
+                }
+                // Earlier records that missed the log go first; until they do, ours wait too
+                boolean inOrder = appendPendingChanges();
+                changeLog.assign(unitOfWork.changes);
+                if (!unitOfWork.changes.isEmpty()) {
+                    entries.set(CHANGES_KEY, objectMapper.valueToTree(unitOfWork.changes));
+                }
+                byte[] journalBytes = objectMapper.writeValueAsBytes(entries);
+                try {
+                    writeDurably(journal, journalBytes);
+                    syncDirectory();
+                } catch (IOException e) {
+                    changeLog.release();
+                    throw e;
+                }
+                bytesCounter("_journal", "written").increment(journalBytes.length);
+                written = journalBytes.length + apply(unitOfWork.staged);
+                // Committed from here on: nothing below fails the caller
+                boolean appended = inOrder && appendChanges(unitOfWork.changes);
+                try {
+                    bumpStamps(unitOfWork.staged.keySet(), !unitOfWork.changes.isEmpty());
+                    finishJournal(journal, unitOfWork.changes, appended);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("❌ Committed " + unitOfWork.staged.keySet()
+                        + " but could not finish its journal; it is replayed on the next commit: " + e.getMessage());
+                }
+            } else {
+                written = apply(unitOfWork.staged);
+                bumpStamps(unitOfWork.staged.keySet(), false);
+            }
+            StorageAccess.recordWrite(unitOfWork.staged.size(), written);
+            Timer.builder("skybook.storage.commit")
+                .description("Unit of work commit, including fsync")
+                .tag("journaled", String.valueOf(journaled))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            event.succeeded = true;
+            System.out.println("✅ Committed " + unitOfWork.staged.keySet());
+        } catch (IOException e) {
+            System.err.println("❌ Failed to commit " + unitOfWork.staged.keySet() + ": " + e.getMessage());
+            throw new RuntimeException("Failed to save data to files: " + unitOfWork.staged.keySet(), e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Write each file aside, fsync and rename it over, then sync the
+     * directory so the renames are durable before a journal is dropped
+     * @return bytes written
+     */
+    private long apply(Map<String, JsonNode> files) throws IOException {
+        long written = 0;
+        for (Map.Entry<String, JsonNode> entry : files.entrySet()) {
+            Path target = Paths.get(storagePath, entry.getKey() + ".json");
+            StorageWriteEvent event = new StorageWriteEvent();
+            event.begin();
+            event.collection = entry.getKey();
+            if (entry.getValue().isNull()) {
+                Files.deleteIfExists(target);
+                event.deleted = true;
+                event.commit();
+                continue;
+            }
+            Path temp = Paths.get(storagePath, entry.getKey() + ".json.tmp");
+            byte[] bytes = objectMapper.writeValueAsBytes(entry.getValue());
+            event.bytes = bytes.length;
+            written += bytes.length;
+            event.records = entry.getValue().size();
+            bytesCounter(entry.getKey(), "written").increment(bytes.length);
+            registerSizeGauge(entry.getKey());
+            writeDurably(temp, bytes);
+            // Readers only ever see the old file or the new one, never half of one
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            event.commit();
+        }
+        syncDirectory();
+        return written;
+    }
+
+    private void recordRead(StorageReadEvent event, String fileName, String operation, long startedNanos,
+                            long bytes, int records) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.collection = fileName;
+            event.operation = operation;
+            event.bytes = bytes;
+            event.records = records;
+            event.commit();
+        }
+        Timer.builder("skybook.storage.read")
+            .description("Time to read and parse a storage file (forEach includes the caller's per-record work)")
+            .tag("file", fileName)
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("skybook.storage.records")
+            .description("Records deserialized per read")
+            .baseUnit("records")
+            .tag("file", fileName)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(records);
+        bytesCounter(fileName, "read").increment(bytes);
+        registerSizeGauge(fileName);
+        StorageAccess.recordRead(fileName, bytes, records);
+    }
+
+    private Counter bytesCounter(String fileName, String direction) {
+        return Counter.builder("skybook.storage.bytes")
+            .baseUnit("bytes")
+            .tag("file", fileName)
+            .tag("direction", direction)
+            .register(meterRegistry);
+    }
+
+    private void registerSizeGauge(String fileName) {
+        if (sizeGauges.add(fileName)) {
+            File file = new File(storagePath + "/" + fileName + ".json");
+            Gauge.builder("skybook.storage.file.size", file, File::length)
+                .description("Current size of a storage file")
+                .baseUnit("bytes")
+                .tag("file", fileName)
+                .register(meterRegistry);
+        }
+    }
+
+    private void writeDurably(Path path, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Make renames and deletes in the storage directory durable. Windows
+     * can't open a directory for this, and commits its renames itself.
+     */
+    private void syncDirectory() throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(storagePath), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Finish a commit interrupted by a crash. A journal that doesn't parse
+     * was never completed, so its commit never started touching the files.
+     * @return the collections it wrote
+     */
+    private Set<String> recoverJournal() {
+        Path journal = Paths.get(storagePath, JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            return Set.of();
+        }
+        try {
+            JsonNode entries;
+            try {
+                entries = objectMapper.readTree(journal.toFile());
+            } catch (IOException e) {
+                System.err.println("Warning: discarding incomplete journal: " + e.getMessage());
+                Files.deleteIfExists(journal);
+                return Set.of();
+            }
+            Map<String, JsonNode> files = new LinkedHashMap<>();
+            entries.fields().forEachRemaining(entry -> files.put(entry.getKey(), entry.getValue()));
+            JsonNode changes = files.remove(CHANGES_KEY);
+            apply(files);
+            List<ChangeRecord> records = List.of();
+            boolean appended = true;
+            if (changes != null) {
+                records = objectMapper.readerForListOf(ChangeRecord.class).readValue(changes);
+                changeLog.refresh();
+                appended = appendPendingChanges() && appendChanges(records);
+            }
+            bumpStamps(files.keySet(), changes != null);
+            finishJournal(journal, records, appended);
+            System.out.println("✅ Recovered interrupted commit of " + files.keySet());
+            Set<String> recovered = new TreeSet<>(files.keySet());
+            if (changes != null) {
+                recovered.add(CHANGES_KEY);
+            }
+            recovered.forEach(collection -> externalVersions.merge(collection, 1L, Long::sum));
+            return recovered;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not recover storage journal", e);
+        }
+    }
+
+    /**
+     * Append a committed unit's change records. The files are already in
+     * place, so a failure is logged rather than thrown.
+     * @return false if the records are not in the log (finishJournal parks them)
+     */
+    private boolean appendChanges(List<ChangeRecord> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        try {
+            changeLog.append(records);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Could not append changes " + records.get(0).getSequence() + ".."
+                + records.get(records.size() - 1).getSequence() + " to the change log, will retry: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Drop a finished journal, or keep it as a pending file if its records
+     * missed the log. Named by first and last sequence, so they sort in order
+     * and the sequences stay taken.
+     */
+    private void finishJournal(Path journal, List<ChangeRecord> records, boolean appended) throws IOException {
+        if (appended || records.isEmpty()) {
+            Files.deleteIfExists(journal);
+            return;
+        }
+        long first = records.get(0).getSequence();
+        long last = records.get(records.size() - 1).getSequence();
+        Path dir = Paths.get(storagePath, PENDING_CHANGES_DIR);
+        Files.createDirectories(dir);
+        Files.move(journal, dir.resolve(String.format("%020d-%020d.json", first, last)), StandardCopyOption.ATOMIC_MOVE);
+        pendingChanges = true;
+        changeLog.reserve(last);
+    }
+
+    /**
+     * Append the records of parked journals, oldest first; stops at the first
+     * that still fails, and keeps its sequences and later ones reserved
+     * @return true if nothing is pending any more
+     */
+    private boolean appendPendingChanges() {
+        if (!shared && !pendingChanges) {
+            return true;
+        }
+        Path dir = Paths.get(storagePath, PENDING_CHANGES_DIR);
+        if (!Files.isDirectory(dir)) {
+            pendingChanges = false;
+            return true;
+        }
+        List<Path> parked;
+        try (Stream<Path> files = Files.list(dir)) {
+            parked = files.filter(file -> file.getFileName().toString().endsWith(".json")).sorted().toList();
+        } catch (IOException e) {
+            System.err.println("❌ Could not list pending change log records: " + e.getMessage());
+            return false;
+        }
+        for (Path file : parked) {
+            try {
+                JsonNode changes = objectMapper.readTree(file.toFile()).get(CHANGES_KEY);
+                if (changes != null) {
+                    changeLog.append(objectMapper.readerForListOf(ChangeRecord.class).readValue(changes));
+                }
+                Files.delete(file);
+                System.out.println("✅ Appended pending change log records from " + file.getFileName());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("❌ Pending change log records in " + file.getFileName() + " still can't be appended: "
+                    + e.getMessage());
+                String last = parked.get(parked.size() - 1).getFileName().toString();
+                changeLog.reserve(Long.parseLong(last.substring(last.indexOf('-') + 1, last.length() - ".json".length())));
+                pendingChanges = true;
+                return false;
+            }
+        }
+        pendingChanges = false;
+        return true;
+    }
+
+    /**
+     * Take the OS lock on the shared directory, or null when not shared.
+     * Polls tryLock() rather than blocking in lock(): an interrupt during a
+     * blocking FileChannel call closes the channel.
+     */
+    private FileLock lockSharedDirectory() {
+        if (!shared) {
+            return null;
+        }
+        long backoffNanos = TimeUnit.MICROSECONDS.toNanos(100);
+        while (true) {
+            try {
+                if (lockChannel == null || !lockChannel.isOpen()) {
+                    lockChannel = FileChannel.open(Paths.get(storagePath, LOCK_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                }
+                FileLock lock = lockChannel.tryLock();
+                if (lock != null) {
+                    return lock;
+                }
+            } catch (ClosedChannelException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new RuntimeException("Interrupted waiting for the storage directory lock", e);
+                }
+                continue;
+            } catch (IOException e) {
+                throw new RuntimeException("Could not lock storage directory", e);
+            }
+            LockSupport.parkNanos(backoffNanos);
+            backoffNanos = Math.min(backoffNanos * 2, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+    }
+
+    private void releaseSharedDirectory(FileLock lock) {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (ClosedChannelException e) {
+            // Closing the channel already released it
+        } catch (IOException e) {
+            System.err.println("Warning: Could not release storage directory lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collections whose stamp moved since we last looked; only other
+     * instances move them without updating seenStamps
+     */
+    private Set<String> checkExternalChanges() {
+        if (!shared) {
+            return Set.of();
+        }
+        stampLock.lock();
+        try {
+            VersionStamps current = readStamps();
+            if (current.version == seenStamps.version) {
+                return Set.of();
+            }
+            Set<String> changed = new TreeSet<>();
+            current.collections.forEach((collection, stamp) -> {
+                if (stamp > seenStamps.collections.getOrDefault(collection, 0L)) {
+                    changed.add(collection);
+                    externalVersions.merge(collection, 1L, Long::sum);
+                }
+            });
+            seenStamps = current;
+            return changed;
+        } finally {
+            stampLock.unlock();
+        }
+    }
+
+    /**
+     * Record our own commit in the stamps; caller holds the directory lock.
+     * Not fsynced: the stamps only matter to instances that are still running.
+     */
+    private void bumpStamps(Collection<String> collections, boolean changeLogAppended) throws IOException {
+        if (!shared) {
+            return;
+        }
+        stampLock.lock();
+        try {
+            VersionStamps next = new VersionStamps();
+            next.version = seenStamps.version + 1;
+            next.collections.putAll(seenStamps.collections);
+            collections.forEach(collection -> next.collections.put(collection, next.version));
+            if (changeLogAppended) {
+                next.collections.put(CHANGES_KEY, next.version);
+            }
+            Path temp = Paths.get(storagePath, VERSION_STAMPS_FILE + ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(next));
+            try {
+                Files.move(temp, Paths.get(storagePath, VERSION_STAMPS_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, Paths.get(storagePath, VERSION_STAMPS_FILE), StandardCopyOption.REPLACE_EXISTING);
+            }
+            seenStamps = next;
+        } finally {
+            stampLock.unlock();
+        }
+    }
+
+    private VersionStamps readStamps() {
+        Path file = Paths.get(storagePath, VERSION_STAMPS_FILE);
+        if (!Files.exists(file)) {
+            return new VersionStamps();
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), VersionStamps.class);
+        } catch (IOException e) {
+            // Replaced while we opened it; the next look will see the new one
+            System.err.println("Warning: Could not read version stamps: " + e.getMessage());
+            return seenStamps;
+        }
+    }
+
+    private void publishExternalChanges(Set<String> collections) {
+        if (collections.isEmpty()) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new StorageChangedEvent(Collections.unmodifiableSet(collections)));
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Invalidating caches for " + collections + " failed: " + e.getMessage());
+        }
+    }
+
+    private static class UnitOfWork {
+        // File name -> new contents; NullNode marks a deletion
+        private final Map<String, JsonNode> staged = new LinkedHashMap<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<ChangeRecord> changes = new ArrayList<>();
+    }
+
+    /**
+     * VersionStamps - _versions.json: a counter bumped by every commit and,
+     * per collection, the counter value of the commit that last wrote it
+     */
+    private static class VersionStamps {
+        public long version;
+        public Map<String, Long> collections = new HashMap<>();
+    }
+
+    private static class ParserState {
+        private final long started = System.nanoTime();
+        private final StorageReadEvent event = new StorageReadEvent();
+        private JsonParser parser;
+        private long bytes;
+        private int records;
+
+        void close() {
+            if (parser == null) {
+                return;
+            }
+            try {
+                parser.close();
+            } catch (IOException e) {
+                System.err.println("Warning: Could not close stream: " + e.getMessage());
+            }
+            parser = null;
         }
     }
 }
\ No newline at end of file
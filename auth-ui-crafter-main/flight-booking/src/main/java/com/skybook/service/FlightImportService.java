@@ -0,0 +1,392 @@
+package com.skybook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skybook.dto.FlightDTO;
+import com.skybook.model.Flight;
+import com.skybook.repository.FlightRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FlightImportService - bulk schedule import from CSV or JSON lines
+ * Rows are read as a stream and parsed/validated in parallel chunks, then
+ * every accepted flight is written with one saveAll: one read and one write
+ * of flights.json however many rows there are. A row whose flight number
+ * already exists updates that flight instead of adding a duplicate, but
+ * keeps its stored availableSeats: bookings and holds have already been
+ * counted against them. The report lists flights whose seat count was kept.
+ */
+@Service
+@RequiredArgsConstructor
+public class FlightImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final List<String> REQUIRED_COLUMNS = List.of(
+        "type", "flightNumber", "airline", "departureCity", "arrivalCity", "basePrice", "availableSeats");
+
+    private final FlightRepository flightRepository;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${skybook.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // 0 = one per CPU
+    @Value("${skybook.import.threads:0}")
+    private int threads;
+
+    @Value("${skybook.import.max-rows:200000}")
+    private int maxRows;
+
+    private ExecutorService parsers;
+    private int parserCount;
+
+    @PostConstruct
+    public void init() {
+        parserCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        parsers = Executors.newFixedThreadPool(parserCount, r -> {
+            Thread t = new Thread(r, "flight-import-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdown();
+    }
+
+    public Map<String, Object> importFlights(InputStream input, Format format) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        Map<String, Integer> columns = null;
+        int lineNumber = 0;
+        if (format == Format.CSV) {
+            String headerLine = reader.readLine();
+            lineNumber++;
+            if (headerLine == null) {
+                return failure("Empty file");
+            }
+            columns = new HashMap<>();
+            List<String> header = splitCsv(headerLine);
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+            List<String> missing = new ArrayList<>(REQUIRED_COLUMNS);
+            missing.removeAll(columns.keySet());
+            if (!missing.isEmpty()) {
+                return failure("Missing columns: " + String.join(", ", missing));
+            }
+        }
+
+        // Parse chunks in parallel, but keep only a few in flight so a huge
+        // upload isn't read far ahead of the parsers
+        Map<String, Integer> csvColumns = columns;
+        Deque<Future<List<RowResult>>> inFlight = new ArrayDeque<>();
+        Collector collector = new Collector();
+        List<RawRow> chunk = new ArrayList<>(chunkSize);
+        int rows = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (++rows > maxRows) {
+                inFlight.forEach(future -> future.cancel(true));
+                return failure("More than " + maxRows + " rows; nothing was imported");
+            }
+            chunk.add(new RawRow(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                List<RawRow> rowsToParse = chunk;
+                inFlight.add(parsers.submit(() -> parseChunk(rowsToParse, csvColumns)));
+                chunk = new ArrayList<>(chunkSize);
+                if (inFlight.size() >= parserCount * 2) {
+                    collector.accept(await(inFlight.poll()));
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            List<RawRow> rowsToParse = chunk;
+            inFlight.add(parsers.submit(() -> parseChunk(rowsToParse, csvColumns)));
+        }
+        while (!inFlight.isEmpty()) {
+            collector.accept(await(inFlight.poll()));
+        }
+
+        // Resolve existing flight numbers and write in one unit, so a concurrent
+        // save or booking can't slip in between
+        List<Flight> accepted = collector.accepted;
+        List<Map<String, Object>> seatsKept = new ArrayList<>();
+        int[] seatsKeptCount = new int[1];
+        int updated = fileStorageService.inUnitOfWork(() -> {
+            Map<String, FlightRepository.StoredSeats> existing = flightRepository.findSeatsByFlightNumber();
+            int matches = 0;
+            for (Flight flight : accepted) {
+                FlightRepository.StoredSeats stored = existing.get(flight.getFlightNumber());
+                if (stored == null) {
+                    continue;
+                }
+                flight.setId(stored.id());
+                matches++;
+                if (!Objects.equals(flight.getAvailableSeats(), stored.availableSeats())) {
+                    seatsKeptCount[0]++;
+                    if (seatsKept.size() < MAX_REPORTED_ERRORS) {
+                        Map<String, Object> entry = new HashMap<>();
+                        entry.put("flightNumber", flight.getFlightNumber());
+                        entry.put("imported", flight.getAvailableSeats());
+                        entry.put("kept", stored.availableSeats());
+                        seatsKept.add(entry);
+                    }
+                    flight.setAvailableSeats(stored.availableSeats());
+                }
+            }
+            if (!accepted.isEmpty()) {
+                flightRepository.saveAll(accepted);
+            }
+            return matches;
+        });
+
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        Map<String, Object> report = new HashMap<>();
+        report.put("success", true);
+        report.put("totalRows", rows);
+        report.put("imported", accepted.size());
+        report.put("created", accepted.size() - updated);
+        report.put("updated", updated);
+        report.put("seatsKept", seatsKeptCount[0]);
+        report.put("seatsKeptFlights", seatsKept);
+        report.put("rejected", collector.rejected);
+        report.put("errors", collector.errors);
+        report.put("errorsTruncated", collector.rejected > collector.errors.size());
+        report.put("elapsedMs", elapsedMs);
+        report.put("rowsPerSecond", rows * 1000L / elapsedMs);
+        System.out.println("✅ Imported " + accepted.size() + " flights (" + collector.rejected + " rejected) in "
+            + elapsedMs + "ms");
+        return report;
+    }
+
+    private List<RowResult> parseChunk(List<RawRow> rows, Map<String, Integer> csvColumns) {
+        List<RowResult> results = new ArrayList<>(rows.size());
+        for (RawRow row : rows) {
+            try {
+                FlightDTO dto = csvColumns != null
+                    ? fromCsv(splitCsv(row.text()), csvColumns)
+                    : objectMapper.readValue(row.text(), FlightDTO.class);
+                String error = validate(dto);
+                results.add(error == null
+                    ? new RowResult(row.line(), toFlight(dto), null)
+                    : new RowResult(row.line(), null, error));
+            } catch (Exception e) {
+                results.add(new RowResult(row.line(), null, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private FlightDTO fromCsv(List<String> fields, Map<String, Integer> columns) {
+        FlightDTO dto = new FlightDTO();
+        dto.setType(field(fields, columns, "type"));
+        dto.setFlightNumber(field(fields, columns, "flightNumber"));
+        dto.setAirline(field(fields, columns, "airline"));
+        dto.setDepartureCity(field(fields, columns, "departureCity"));
+        dto.setArrivalCity(field(fields, columns, "arrivalCity"));
+        dto.setDepartureTime(field(fields, columns, "departureTime"));
+        dto.setArrivalTime(field(fields, columns, "arrivalTime"));
+        dto.setDuration(field(fields, columns, "duration"));
+        dto.setImage(field(fields, columns, "image"));
+        dto.setDestinationCountry(field(fields, columns, "destinationCountry"));
+        try {
+            String value = field(fields, columns, "basePrice");
+            dto.setBasePrice(value != null ? Double.valueOf(value) : null);
+            value = field(fields, columns, "availableSeats");
+            dto.setAvailableSeats(value != null ? Integer.valueOf(value) : null);
+            value = field(fields, columns, "stateTaxPercentage");
+            dto.setStateTaxPercentage(value != null ? Double.valueOf(value) : null);
+            value = field(fields, columns, "internationalTaxPercentage");
+            dto.setInternationalTaxPercentage(value != null ? Double.valueOf(value) : null);
+            value = field(fields, columns, "baggageAllowanceKg");
+            dto.setBaggageAllowanceKg(value != null ? Integer.valueOf(value) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+        String value = field(fields, columns, "includesMeal");
+        dto.setIncludesMeal(value != null ? Boolean.valueOf(value) : null);
+        value = field(fields, columns, "visaRequired");
+        dto.setVisaRequired(value != null ? Boolean.valueOf(value) : null);
+        value = field(fields, columns, "departureDate");
+        dto.setDepartureDate(value != null ? LocalDate.parse(value) : null);
+        return dto;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @return why the row is rejected, or null if it is valid
+     */
+    private static String validate(FlightDTO dto) {
+        if (dto.getType() == null) {
+            return "type is required";
+        }
+        dto.setType(dto.getType().toUpperCase());
+        if (!"DOMESTIC".equals(dto.getType()) && !"INTERNATIONAL".equals(dto.getType())) {
+            return "type must be DOMESTIC or INTERNATIONAL";
+        }
+        if (isBlank(dto.getFlightNumber()) || isBlank(dto.getAirline())
+                || isBlank(dto.getDepartureCity()) || isBlank(dto.getArrivalCity())) {
+            return "flightNumber, airline, departureCity and arrivalCity are required";
+        }
+        if (dto.getBasePrice() == null || dto.getBasePrice() <= 0) {
+            return "basePrice must be greater than 0";
+        }
+        if (dto.getAvailableSeats() == null || dto.getAvailableSeats() < 0) {
+            return "availableSeats must be 0 or more";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static Flight toFlight(FlightDTO dto) {
+        // Ids belong to the store; fill the same defaults the model classes use
+        dto.setId(null);
+        if ("DOMESTIC".equals(dto.getType())) {
+            if (dto.getStateTaxPercentage() == null) {
+                dto.setStateTaxPercentage(5.0);
+            }
+            if (dto.getIncludesMeal() == null) {
+                dto.setIncludesMeal(false);
+            }
+        } else {
+            if (dto.getInternationalTaxPercentage() == null) {
+                dto.setInternationalTaxPercentage(12.0);
+            }
+            if (dto.getVisaRequired() == null) {
+                dto.setVisaRequired(true);
+            }
+            if (dto.getBaggageAllowanceKg() == null) {
+                dto.setBaggageAllowanceKg(30);
+            }
+        }
+        return dto.toFlight();
+    }
+
+    /**
+     * Split one CSV line, honouring double-quoted fields ("" is an escaped quote)
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static List<RowResult> await(Future<List<RowResult>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Import failed", e.getCause());
+        }
+    }
+
+    private static Map<String, Object> failure(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+
+    /**
+     * Gathers chunk results in input order, rejecting repeated flight numbers
+     */
+    private static class Collector {
+        private final List<Flight> accepted = new ArrayList<>();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private final Map<String, Integer> firstLines = new HashMap<>();
+        private int rejected;
+
+        void accept(List<RowResult> results) {
+            for (RowResult result : results) {
+                String error = result.error();
+                if (error == null) {
+                    Integer firstLine = firstLines.putIfAbsent(result.flight().getFlightNumber(), result.line());
+                    if (firstLine == null) {
+                        accepted.add(result.flight());
+                        continue;
+                    }
+                    error = "Duplicate flight number " + result.flight().getFlightNumber() + " (first on line " + firstLine + ")";
+                }
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    Map<String, Object> entry = new HashMap<>();
+                    entry.put("line", result.line());
+                    entry.put("message", error);
+                    errors.add(entry);
+                }
+            }
+        }
+    }
+
+    private record RawRow(int line, String text) {
+    }
+
+    private record RowResult(int line, Flight flight, String error) {
+    }
+}
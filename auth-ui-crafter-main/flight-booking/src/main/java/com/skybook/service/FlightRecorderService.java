@@ -0,0 +1,162 @@
+package com.skybook.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * FlightRecorderService - one on-demand JDK Flight Recorder recording
+ * Started from the admin API with the JDK's "default" (low overhead, safe
+ * for live traffic) or "profile" settings; the com.skybook.* events are
+ * enabled either way. The recording is bounded by max age and size, and
+ * can be dumped to a .jfr file while running or after it is stopped.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${skybook.jfr.path:./data/recordings}")
+    private String recordingPath;
+
+    @Value("${skybook.jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${skybook.jfr.max-size-mb:100}")
+    private long maxSizeMb;
+
+    // Not synchronized: dump() writes the recording file while holding it
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+    private String recordingSettings;
+
+    /**
+     * Start a recording; a stopped one is discarded, a running one is left alone
+     */
+    public Map<String, Object> start(String settings) throws IOException, ParseException {
+        lock.lock();
+        try {
+            if (!SETTINGS.contains(settings)) {
+                throw new IllegalArgumentException("settings must be one of " + SETTINGS);
+            }
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                Map<String, Object> response = status();
+                response.put("message", "Recording already running");
+                return response;
+            }
+            close();
+            Recording started = new Recording(Configuration.getConfiguration(settings));
+            started.setName("skybook-" + LocalDateTime.now().format(FILE_TIME));
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            started.setMaxSize(maxSizeMb * 1024 * 1024);
+            started.enable("com.skybook.StorageRead").withThreshold(Duration.ZERO);
+            started.enable("com.skybook.StorageWrite").withThreshold(Duration.ZERO);
+            started.enable("com.skybook.StorageCommit").withThreshold(Duration.ZERO).withStackTrace();
+            started.enable("com.skybook.BookingStage").withThreshold(Duration.ZERO);
+            started.enable("com.skybook.Payment").withThreshold(Duration.ZERO);
+            started.enable("com.skybook.PdfRender").withThreshold(Duration.ZERO);
+            started.start();
+            recording = started;
+            recordingSettings = settings;
+            System.out.println("✅ JFR recording " + started.getName() + " started with " + settings + " settings");
+            Map<String, Object> response = status();
+            response.put("message", "Recording started");
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stop() {
+        lock.lock();
+        try {
+            if (recording == null || recording.getState() != RecordingState.RUNNING) {
+                Map<String, Object> response = status();
+                response.put("message", "No recording running");
+                return response;
+            }
+            recording.stop();
+            System.out.println("✅ JFR recording " + recording.getName() + " stopped");
+            Map<String, Object> response = status();
+            response.put("message", "Recording stopped, dump it to download");
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the current recording to a new .jfr file
+     * @return the file, or null when there has been no recording
+     */
+    public Path dump() throws IOException {
+        lock.lock();
+        try {
+            if (recording == null) {
+                return null;
+            }
+            Path dir = Paths.get(recordingPath);
+            Files.createDirectories(dir);
+            Path file = dir.resolve(recording.getName() + "-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+            recording.dump(file);
+            System.out.println("✅ JFR recording dumped to " + file.toAbsolutePath());
+            return file;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> status() {
+        lock.lock();
+        try {
+            Map<String, Object> status = new HashMap<>();
+            status.put("success", true);
+            if (recording == null) {
+                status.put("state", "NONE");
+                return status;
+            }
+            status.put("name", recording.getName());
+            status.put("state", recording.getState().name());
+            status.put("settings", recordingSettings);
+            status.put("startTime", String.valueOf(recording.getStartTime()));
+            status.put("stopTime", String.valueOf(recording.getStopTime()));
+            status.put("sizeBytes", recording.getSize());
+            status.put("maxAgeMinutes", maxAgeMinutes);
+            status.put("maxSizeMb", maxSizeMb);
+            return status;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                recording.close();
+                recording = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
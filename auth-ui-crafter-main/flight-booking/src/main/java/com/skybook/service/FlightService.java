@@ -1,14 +1,26 @@
 package com.skybook.service;
 
+import com.skybook.event.FlightDeletedEvent;
+import com.skybook.event.FlightSavedEvent;
+import com.skybook.event.StorageChangedEvent;
 import com.skybook.model.Flight;
 import com.skybook.repository.FlightRepository;
+import com.skybook.util.Cursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +33,18 @@ public class FlightService {
     
     private final FlightRepository flightRepository;
     
+    public static final int MAX_PAGE_SIZE = 100;
+    
+    // A stream the client stops reading for this long is cancelled, freeing its write thread
+    @Value("${skybook.streaming.idle-timeout-ms:30000}")
+    private long streamIdleTimeoutMs;
+    
+    // Per-route minimum fares, kept current from flight save events
+    private final FareCalendar fareCalendar = new FareCalendar();
+    // Not synchronized: the first load reads flights.json while holding it
+    private final ReentrantLock fareCalendarLock = new ReentrantLock();
+    private volatile boolean fareCalendarLoaded = false;
+    
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getAllFlights() {
         List<Flight> flights = flightRepository.findAll();
@@ -61,6 +85,113 @@ public class FlightService {
             .collect(Collectors.toList());
     }
     
+    /**
+     * One page of the same listing GET /api/flights returns: a route, a city,
+     * or all available flights. nextCursor is null on the last page.
+     */
+    public Map<String, Object> getFlightsPage(String from, String to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Flight> flights = flightRepository.findPage(listingFilter(from, to), Cursor.decode(cursor), pageSize + 1);
+        
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", flights.stream()
+            .limit(pageSize)
+            .map(this::convertToResponse)
+            .collect(Collectors.toList()));
+        page.put("nextCursor", flights.size() > pageSize ? Cursor.encode(flights.get(pageSize - 1).getId()) : null);
+        return page;
+    }
+    
+    /**
+     * Hand every flight in the listing to the sink one at a time (for NDJSON export)
+     */
+    public void exportFlights(String from, String to, Consumer<Map<String, Object>> sink) {
+        flightRepository.forEach(listingFilter(from, to), flight -> sink.accept(convertToResponse(flight)));
+    }
+    
+    /**
+     * The same listing as exportFlights, as a Flux that is parsed on demand
+     */
+    public Flux<Map<String, Object>> streamFlights(String from, String to) {
+        return flightRepository.flux(listingFilter(from, to)).map(this::convertToResponse)
+            .timeout(Duration.ofMillis(streamIdleTimeoutMs));
+    }
+    
+    private Predicate<Flight> listingFilter(String from, String to) {
+        if (from != null && to != null) {
+            return f -> f.getDepartureCity().equalsIgnoreCase(from) && f.getArrivalCity().equalsIgnoreCase(to);
+        }
+        if (from != null || to != null) {
+            String location = from != null ? from : to;
+            return f -> f.getDepartureCity().equalsIgnoreCase(location) || f.getArrivalCity().equalsIgnoreCase(location);
+        }
+        return Flight::isAvailable;
+    }
+    
+    /**
+     * Cheapest fare per route for each day in [startDate, endDate]
+     */
+    public List<Map<String, Object>> getFareCalendar(String from, String to, LocalDate startDate, LocalDate endDate) {
+        ensureFareCalendarLoaded();
+        return fareCalendar.query(from, to, startDate, endDate);
+    }
+    
+    @EventListener
+    public void onFlightSaved(FlightSavedEvent event) {
+        fareCalendarLock.lock();
+        try {
+            // Until the first load the file itself is the source of truth
+            if (fareCalendarLoaded) {
+                fareCalendar.update(event.getFlight());
+            }
+        } finally {
+            fareCalendarLock.unlock();
+        }
+    }
+    
+    @EventListener
+    public void onFlightDeleted(FlightDeletedEvent event) {
+        fareCalendarLock.lock();
+        try {
+            if (fareCalendarLoaded) {
+                fareCalendar.remove(event.getFlightId());
+            }
+        } finally {
+            fareCalendarLock.unlock();
+        }
+    }
+    
+    /**
+     * Another instance changed flights; rebuild on next use
+     */
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (!event.affects(FlightRepository.FLIGHTS_FILE)) {
+            return;
+        }
+        fareCalendarLock.lock();
+        try {
+            fareCalendarLoaded = false;
+        } finally {
+            fareCalendarLock.unlock();
+        }
+    }
+    
+    private void ensureFareCalendarLoaded() {
+        if (fareCalendarLoaded) {
+            return;
+        }
+        fareCalendarLock.lock();
+        try {
+            if (!fareCalendarLoaded) {
+                fareCalendar.rebuild(flightRepository.findAll());
+                fareCalendarLoaded = true;
+            }
+        } finally {
+            fareCalendarLock.unlock();
+        }
+    }
+    
     private Map<String, Object> convertToResponse(Flight flight) {
         Map<String, Object> response = new HashMap<>();
         response.put("id", flight.getId());
@@ -75,6 +206,7 @@ public class FlightService {
         response.put("finalPrice", flight.calculateFinalPrice()); // Polymorphic method
         response.put("availableSeats", flight.getAvailableSeats());
         response.put("image", flight.getImage());
+        response.put("departureDate", flight.getDepartureDate());
         response.put("flightType", flight.getFlightType()); // Polymorphic method
         response.put("requiresVisa", flight.requiresVisa()); // Polymorphic method
         response.put("flightInfo", flight.getFlightInfo()); // Polymorphic method
@@ -0,0 +1,195 @@
+package com.skybook.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdGenerator - unique, time-ordered references without a storage lookup
+ * Snowflake layout: 41 bits of milliseconds since 2024-01-01, 10 bits of
+ * node id and a 12 bit per-millisecond sequence, advanced with a single CAS.
+ * Rendered in Crockford base32 (no I, L, O or U) so references are easy
+ * to read out over the phone.
+ * Without an explicit skybook.node-id, the node id is leased: the first of
+ * <storage>/_nodes/<id>.lease this process can hold an OS file lock on.
+ * The lock goes away with the process, crash included, so ids are reused
+ * but never held by two live instances on the same storage. With
+ * skybook.storage.shared an explicit id is leased too, and an instance that
+ * can't hold its lease refuses to start rather than risk duplicates.
+ */
+@Service
+public class IdGenerator {
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    // Must be unique per running instance; -1 leases one under the storage directory
+    @Value("${skybook.node-id:-1}")
+    private long configuredNodeId;
+
+    @Value("${skybook.storage.path:./data}")
+    private String storagePath;
+
+    @Value("${skybook.storage.shared:false}")
+    private boolean sharedStorage;
+
+    private long nodeId;
+    private FileChannel leaseChannel;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId & MAX_NODE;
+            if (sharedStorage) {
+                leaseConfiguredNodeId();
+            }
+            System.out.println("✅ IdGenerator node id: " + nodeId + " (skybook.node-id)");
+            return;
+        }
+        long start = deriveNodeId();
+        try {
+            nodeId = leaseNodeId(start);
+            System.out.println("✅ IdGenerator node id: " + nodeId + " (leased under " + storagePath + "/_nodes)");
+        } catch (IOException | IllegalStateException e) {
+            if (sharedStorage) {
+                throw new IllegalStateException("skybook.storage.shared needs a unique node id and none could be"
+                    + " leased under " + storagePath + "/_nodes - set skybook.node-id", e);
+            }
+            nodeId = start;
+            System.err.println("❌ Could not lease a node id (" + e.getMessage() + "); using " + nodeId
+                + " derived from host name and pid. Another instance may derive the same id and hand out"
+                + " duplicate references - set skybook.node-id explicitly.");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (leaseChannel != null) {
+            leaseChannel.close();
+        }
+    }
+
+    /**
+     * Another live instance on this storage with the same skybook.node-id
+     * would hand out the same references
+     */
+    private void leaseConfiguredNodeId() {
+        try {
+            if (!tryLease(Paths.get(storagePath, "_nodes"), nodeId)) {
+                throw new IllegalStateException("skybook.node-id " + nodeId
+                    + " is already in use by another instance sharing " + storagePath);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not lease skybook.node-id " + nodeId + " under " + storagePath, e);
+        }
+    }
+
+    /**
+     * Lock the first free lease file, starting at the derived id so instances
+     * on different hosts still tend to spread out
+     */
+    private long leaseNodeId(long start) throws IOException {
+        Path dir = Paths.get(storagePath, "_nodes");
+        for (long i = 0; i <= MAX_NODE; i++) {
+            long candidate = (start + i) & MAX_NODE;
+            if (tryLease(dir, candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("all " + (MAX_NODE + 1) + " node ids are leased");
+    }
+
+    private boolean tryLease(Path dir, long candidate) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel channel = FileChannel.open(dir.resolve(candidate + ".lease"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held by another generator in this JVM
+        }
+        if (lock == null) {
+            channel.close();
+            return false;
+        }
+        leaseChannel = channel;
+        return true;
+    }
+
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long previous = lastState.get();
+            long previousTime = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousTime) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                // Same millisecond (or the clock stepped back) - bump the sequence
+                next = previous + 1;
+            } else {
+                // Sequence exhausted - borrow the next millisecond
+                next = (previousTime + 1) << SEQUENCE_BITS;
+            }
+            if (lastState.compareAndSet(previous, next)) {
+                long time = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * e.g. BK0C8ZJ3Q7M0G01
+     */
+    public String nextBookingReference() {
+        return "BK" + toBase32(nextId());
+    }
+
+    /**
+     * e.g. CC-0C8ZJ3Q7M0G02
+     */
+    public String nextTransactionId(String prefix) {
+        return prefix + "-" + toBase32(nextId());
+    }
+
+    static String toBase32(long value) {
+        char[] chars = new char[13];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static long deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        return (host.hashCode() * 31L + ProcessHandle.current().pid()) & MAX_NODE;
+    }
+}
@@ -0,0 +1,211 @@
+package com.skybook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.exception.IdempotencyConflictException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyService - replays the original result for retried requests
+ * The first request with a key runs; concurrent and later requests with the
+ * same key share its result instead of re-running payment and saves.
+ * Completed results are kept for a TTL, bounded in number, and written to
+ * idempotency.json on a schedule so retries across a restart still match.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final String IDEMPOTENCY_FILE = "idempotency";
+    // Card details never reach the fingerprint: it is an unsalted hash kept in idempotency.json
+    private static final Set<String> PAYMENT_FIELDS = Set.of("cardNumber", "cardExpiry", "cardCvv");
+
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${skybook.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${skybook.idempotency.max-entries:50000}")
+    private int maxEntries;
+
+    private volatile boolean dirty = false;
+
+    @PostConstruct
+    public void init() {
+        loadStored();
+    }
+
+    /**
+     * Another instance sharing the storage flushed its results; take the ones
+     * we don't have, so a retry sent to this instance still replays
+     */
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (event.affects(IDEMPOTENCY_FILE)) {
+            loadStored();
+        }
+    }
+
+    private void loadStored() {
+        long now = System.currentTimeMillis();
+        for (StoredResult stored : fileStorageService.loadList(IDEMPOTENCY_FILE, StoredResult.class)) {
+            if (stored.getExpiresAt() > now) {
+                entries.putIfAbsent(stored.getKey(), new Entry(stored.getFingerprint(),
+                        CompletableFuture.completedFuture(stored.getResponse()), stored.getExpiresAt()));
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the request body in canonical form (keys sorted at every
+     * level, card details left out), so only a genuinely different request
+     * counts as key reuse
+     */
+    public String fingerprint(Object request) {
+        try {
+            Map<?, ?> tree = objectMapper.convertValue(request, Map.class);
+            tree.keySet().removeAll(PAYMENT_FIELDS);
+            byte[] canonical = objectMapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(tree);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    /**
+     * Run the operation once per key. A key reused with a different request
+     * fingerprint is refused with IdempotencyConflictException.
+     */
+    public CompletableFuture<Map<String, Object>> execute(String key, String fingerprint,
+                                                          Supplier<CompletableFuture<Map<String, Object>>> operation) {
+        CompletableFuture<Map<String, Object>> placeholder = new CompletableFuture<>();
+        Entry created = new Entry(fingerprint, placeholder, System.currentTimeMillis() + ttlMinutes * 60_000L);
+        Entry existing = entries.putIfAbsent(key, created);
+
+        if (existing != null) {
+            if (existing.getExpiresAt() > System.currentTimeMillis()) {
+                if (!existing.getFingerprint().equals(fingerprint)) {
+                    throw new IdempotencyConflictException(key);
+                }
+                return existing.getResult();
+            }
+            // Expired but not yet swept - take it over
+            if (!entries.replace(key, existing, created)) {
+                return execute(key, fingerprint, operation);
+            }
+        }
+
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+
+        CompletableFuture<Map<String, Object>> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            placeholder.completeExceptionally(e);
+            throw e;
+        }
+        result.whenComplete((response, error) -> {
+            // Transient failures are not remembered, so a retry really does retry
+            if (error != null || Boolean.TRUE.equals(response.get("retryable"))) {
+                entries.remove(key, created);
+            } else {
+                dirty = true;
+            }
+            if (error != null) {
+                placeholder.completeExceptionally(error);
+            } else {
+                placeholder.complete(response);
+            }
+        });
+        return placeholder;
+    }
+
+    @Scheduled(fixedDelayString = "${skybook.idempotency.flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        if (entries.values().removeIf(entry -> entry.getExpiresAt() <= now)) {
+            dirty = true;
+        }
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        List<StoredResult> stored = new ArrayList<>();
+        entries.forEach((key, entry) -> {
+            CompletableFuture<Map<String, Object>> result = entry.getResult();
+            if (result.isDone() && !result.isCompletedExceptionally()) {
+                stored.add(new StoredResult(key, entry.getFingerprint(), result.join(), entry.getExpiresAt()));
+            }
+        });
+        fileStorageService.save(IDEMPOTENCY_FILE, stored);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Drop expired entries first, then the ones closest to expiring
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.getExpiresAt() <= now);
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .filter(e -> e.getValue().getResult().isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().getExpiresAt()))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+        dirty = true;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Map<String, Object>> result;
+        private final long expiresAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StoredResult {
+        private String key;
+        private String fingerprint;
+        private Map<String, Object> response;
+        private long expiresAt;
+    }
+}
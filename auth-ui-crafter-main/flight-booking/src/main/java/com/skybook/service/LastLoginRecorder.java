@@ -0,0 +1,59 @@
+package com.skybook.service;
+
+import com.skybook.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LastLoginRecorder - coalesces last-login timestamps
+ * Logins only touch a map; users.json is rewritten once per flush interval
+ * no matter how many logins happened in between.
+ */
+@Service
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private final UserRepository userRepository;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${skybook.login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime != null) {
+                batch.put(userId, loginTime);
+            }
+        }
+        try {
+            userRepository.updateLastLogins(batch);
+        } catch (RuntimeException e) {
+            // Put the batch back so the next flush retries it
+            batch.forEach(this::record);
+            System.err.println("❌ Failed to flush " + batch.size() + " last-login updates: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
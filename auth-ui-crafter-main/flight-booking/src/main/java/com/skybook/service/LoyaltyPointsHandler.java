@@ -0,0 +1,99 @@
+package com.skybook.service;
+
+import com.skybook.dto.BookingDTO;
+import com.skybook.event.BookingEvent;
+import com.skybook.event.BookingEventHandler;
+import com.skybook.model.Booking;
+import com.skybook.model.Passenger;
+import com.skybook.model.User;
+import com.skybook.repository.BookingRepository;
+import com.skybook.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * LoyaltyPointsHandler - credits loyalty points for confirmed bookings
+ * One point per 100 of the booking amount. Each new booking carries
+ * pointsCredited=false; crediting sets it in the same commit that adds the
+ * points, so a booking is credited exactly once. Events only say when to
+ * credit: a batch that fails is kept and retried with the next one, and a
+ * sweep at startup and every sweep-ms credits whatever a crash, a shutdown
+ * timeout or a dropped event left behind.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoyaltyPointsHandler implements BookingEventHandler {
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final FileStorageService fileStorageService;
+
+    // Only touched by the consumer thread; cleared once credited
+    private final Set<Long> pendingBookings = new LinkedHashSet<>();
+
+    @Override
+    public void onEvent(BookingEvent event, long sequence, boolean endOfBatch) {
+        Booking booking = event.getBooking();
+        if (event.getType() == BookingEvent.Type.CONFIRMED && booking.getId() != null) {
+            pendingBookings.add(booking.getId());
+        }
+        if (endOfBatch && !pendingBookings.isEmpty()) {
+            try {
+                credit(pendingBookings);
+                pendingBookings.clear();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Could not credit loyalty points for " + pendingBookings.size()
+                    + " bookings, will retry: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Credit every hot booking still owed points
+     */
+    @Scheduled(fixedDelayString = "${skybook.loyalty.sweep-ms:300000}")
+    public void creditOutstanding() {
+        List<Long> owed = bookingRepository.findIdsAwaitingPoints();
+        if (owed.isEmpty()) {
+            return;
+        }
+        try {
+            int credited = credit(new HashSet<>(owed));
+            if (credited > 0) {
+                System.out.println("✅ Credited loyalty points for " + credited + " bookings left from earlier");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Could not credit outstanding loyalty points: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return how many bookings had points added
+     */
+    private int credit(Set<Long> bookingIds) {
+        return fileStorageService.inUnitOfWork(() -> {
+            List<BookingDTO> owed = bookingRepository.settlePoints(bookingIds);
+            Map<Long, Integer> points = owed.stream()
+                .filter(dto -> dto.getPassengerId() != null && dto.getTotalAmount() != null)
+                .collect(Collectors.toMap(BookingDTO::getPassengerId,
+                    dto -> dto.getTotalAmount().intValue() / 100, Integer::sum));
+            List<Passenger> passengers = new ArrayList<>();
+            Map<Long, User> users = userRepository.findAllByIds(points.keySet());
+            users.forEach((id, user) -> {
+                if (user instanceof Passenger) {
+                    Passenger passenger = (Passenger) user;
+                    passenger.addLoyaltyPoints(points.get(id));
+                    passengers.add(passenger);
+                }
+            });
+            if (!passengers.isEmpty()) {
+                userRepository.saveAll(passengers);
+            }
+            return owed.size();
+        });
+    }
+}
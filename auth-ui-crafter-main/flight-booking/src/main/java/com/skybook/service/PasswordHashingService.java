@@ -0,0 +1,215 @@
+package com.skybook.service;
+
+import com.skybook.exception.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordHashingService - PBKDF2 hashing on its own bounded thread pool
+ * Hashing is deliberately CPU heavy, so it never runs on Tomcat threads:
+ * a full queue is rejected straight away instead of piling up logins.
+ * Stored format: pbkdf2-sha256$iterations$salt$hash (Base64).
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final int CALIBRATION_ITERATIONS = 20_000;
+
+    @Value("${skybook.password.pool-size:0}")
+    private int poolSize;
+
+    @Value("${skybook.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${skybook.password.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    // Fixed iteration count; 0 means calibrate to target-ms at startup
+    @Value("${skybook.password.iterations:0}")
+    private int configuredIterations;
+
+    @Value("${skybook.password.target-ms:100}")
+    private long targetMs;
+
+    @Value("${skybook.password.min-iterations:50000}")
+    private int minIterations;
+
+    @Value("${skybook.password.max-iterations:2000000}")
+    private int maxIterations;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private ThreadPoolExecutor executor;
+    private volatile int iterations;
+
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        iterations = configuredIterations > 0 ? configuredIterations : calibrate();
+        System.out.println("✅ Password hashing: PBKDF2 " + iterations + " iterations on " + threads + " threads");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hash a raw password with the current cost
+     */
+    public String hash(String rawPassword) {
+        return submit(() -> encode(rawPassword, iterations));
+    }
+
+    /**
+     * Check a raw password against a stored value.
+     * Legacy plaintext records and hashes with an outdated cost report needsRehash.
+     */
+    public VerifyResult verify(String rawPassword, String stored) {
+        if (stored == null) {
+            return new VerifyResult(false, false);
+        }
+        if (!stored.startsWith(PREFIX + "$")) {
+            // Legacy plaintext record - compare in constant time, upgrade on success
+            boolean matches = MessageDigest.isEqual(
+                    stored.getBytes(StandardCharsets.UTF_8), rawPassword.getBytes(StandardCharsets.UTF_8));
+            return new VerifyResult(matches, matches);
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return new VerifyResult(false, false);
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            // Corrupt record (NumberFormatException is one too) - a non-match, not a 500
+            System.err.println("Warning: Malformed password hash: " + e.getMessage());
+            return new VerifyResult(false, false);
+        }
+        if (storedIterations <= 0) {
+            return new VerifyResult(false, false);
+        }
+
+        byte[] actual = submit(() -> derive(rawPassword, salt, storedIterations));
+        boolean matches = MessageDigest.isEqual(expected, actual);
+        return new VerifyResult(matches, matches && storedIterations < iterations);
+    }
+
+    /**
+     * A stored value no password verifies against, for accounts created
+     * without one (guest passengers); no KDF is run
+     */
+    public String unusablePassword() {
+        byte[] bytes = new byte[16];
+        secureRandom.nextBytes(bytes);
+        return PREFIX + "$unusable$" + Base64.getEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many login attempts in progress, please retry", 1);
+        }
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Too many login attempts in progress, please retry", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Pick an iteration count that takes roughly target-ms on this machine
+     */
+    private int calibrate() {
+        byte[] salt = new byte[SALT_BYTES];
+        derive("calibration", salt, CALIBRATION_ITERATIONS); // warm up the JIT
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            derive("calibration", salt, CALIBRATION_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long perIterationNanos = Math.max(1, best / CALIBRATION_ITERATIONS);
+        long calibrated = TimeUnit.MILLISECONDS.toNanos(targetMs) / perIterationNanos;
+        return (int) Math.max(minIterations, Math.min(maxIterations, calibrated));
+    }
+
+    private String encode(String rawPassword, int cost) {
+        byte[] salt = new byte[SALT_BYTES];
+        secureRandom.nextBytes(salt);
+        byte[] hash = derive(rawPassword, salt, cost);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + cost + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    private static byte[] derive(String rawPassword, byte[] salt, int cost) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, cost, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public static class VerifyResult {
+        private final boolean matches;
+        private final boolean needsRehash;
+
+        public VerifyResult(boolean matches, boolean needsRehash) {
+            this.matches = matches;
+            this.needsRehash = needsRehash;
+        }
+
+        public boolean matches() {
+            return matches;
+        }
+
+        public boolean needsRehash() {
+            return needsRehash;
+        }
+    }
+}
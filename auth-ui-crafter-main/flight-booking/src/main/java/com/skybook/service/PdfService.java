@@ -10,16 +10,53 @@ import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import com.skybook.jfr.PdfRenderEvent;
 import com.skybook.model.Booking;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.time.format.DateTimeFormatter;
 
 @Service
+@RequiredArgsConstructor
 public class PdfService {
 
+    private final MeterRegistry meterRegistry;
+
     public byte[] generateTicketPdf(Booking booking) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PdfRenderEvent event = new PdfRenderEvent();
+        event.begin();
+        String outcome = "error";
+        try {
+            byte[] pdf = renderTicketPdf(booking);
+            event.bytes = pdf.length;
+            DistributionSummary.builder("skybook.pdf.size")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(pdf.length);
+            outcome = "success";
+            return pdf;
+        } finally {
+            sample.stop(Timer.builder("skybook.pdf.render")
+                .description("Ticket PDF render time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+            event.end();
+            if (event.shouldCommit()) {
+                event.bookingReference = booking.getBookingReference();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private byte[] renderTicketPdf(Booking booking) {
         try {
             if (booking.getFlight() == null) {
                 throw new RuntimeException("Flight data is null for booking: " + booking.getId());
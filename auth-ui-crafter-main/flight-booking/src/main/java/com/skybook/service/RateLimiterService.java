@@ -0,0 +1,116 @@
+package com.skybook.service;
+
+import com.skybook.config.RateLimitProperties;
+import com.skybook.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RateLimiterService - lock-free token buckets per endpoint and client
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time"
+ * (GCRA): taking a token is one CAS, and a bucket whose time has passed is
+ * full, so evicting it loses nothing. That keeps the key map bounded.
+ */
+@Service
+public class RateLimiterService {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> allowedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    public RateLimiterService(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("skybook.ratelimit.buckets", buckets, Map::size)
+            .description("Client buckets currently tracked")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Take one token for the key under the named limit, or throw RateLimitExceededException
+     */
+    public void check(String limitName, String key) {
+        RateLimitProperties.Limit limit = properties.getLimits().get(limitName);
+        if (!properties.isEnabled() || limit == null || key == null) {
+            return;
+        }
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+        long burstNanos = intervalNanos * limit.getCapacity();
+
+        AtomicLong bucket = buckets.get(limitName + ":" + key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxKeys()) {
+                evict();
+            }
+            bucket = buckets.computeIfAbsent(limitName + ":" + key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.get();
+            long tat = current == Long.MIN_VALUE ? now : Math.max(current, now);
+            long next = tat + intervalNanos;
+            if (next - now > burstNanos) {
+                counter(rejectedCounters, limitName, "rejected").increment();
+                long waitNanos = next - now - burstNanos;
+                throw new RateLimitExceededException(limitName,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+            if (bucket.compareAndSet(current, next)) {
+                counter(allowedCounters, limitName, "allowed").increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Identify the calling client for per-client limits
+     */
+    public String clientKey(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                return forwarded.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Drop full buckets; if every bucket is busy, drop arbitrary ones to stay bounded
+     */
+    @Scheduled(fixedDelayString = "${skybook.ratelimit.sweep-interval-ms:30000}")
+    public void evict() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> {
+            long tat = bucket.get();
+            return tat == Long.MIN_VALUE || tat - now <= 0;
+        });
+        int excess = buckets.size() - properties.getMaxKeys() * 9 / 10;
+        Iterator<String> keys = buckets.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String limitName, String outcome) {
+        return counters.computeIfAbsent(limitName, name -> Counter.builder("skybook.ratelimit.requests")
+            .description("Requests checked against a rate limit")
+            .tag("limit", name)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+}
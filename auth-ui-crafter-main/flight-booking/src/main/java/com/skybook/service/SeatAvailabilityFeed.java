@@ -0,0 +1,464 @@
+package com.skybook.service;
+
+import com.skybook.event.FlightDeletedEvent;
+import com.skybook.event.FlightSavedEvent;
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.exception.ServiceBusyException;
+import com.skybook.model.Flight;
+import com.skybook.repository.FlightRepository;
+import com.skybook.util.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SeatAvailabilityFeed - pushes seat counts to watchers over server-sent events
+ * Every seat change (a booking confirmed or cancelled, an admin edit) is
+ * saved through FlightRepository, whose FlightSavedEvent is the change
+ * stream; it is published after commit while the flight's seat lock is
+ * still held, so changes arrive in order. A change is only fanned out to
+ * the subscribers of that flight. Each subscriber keeps at most one pending
+ * update per flight (newer counts replace unsent ones) and has at most one
+ * send in flight, so a slow client costs a few map entries, not a queue.
+ * A send blocks until the client's socket takes the data. With virtual
+ * threads each send gets its own thread; otherwise a small pool is shared,
+ * so a send taking longer than send-timeout-ms drops that client and the
+ * pool gets a replacement thread until the stuck one returns. Either way
+ * a client that stops reading is dropped.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatAvailabilityFeed {
+
+    private final FlightRepository flightRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${skybook.seats-feed.max-flights:50}")
+    private int maxFlights;
+
+    @Value("${skybook.seats-feed.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${skybook.seats-feed.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${skybook.seats-feed.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${skybook.seats-feed.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    // Replacement threads for sends stuck past the timeout, at most this many at once
+    @Value("${skybook.seats-feed.max-stuck-senders:32}")
+    private int maxStuckSenders;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<Long, Set<Subscriber>> subscribersByFlight = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Last pushed count per watched flight, so saves that don't touch seats aren't sent
+    private final Map<Long, Integer> lastSeats = new ConcurrentHashMap<>();
+
+    private ExecutorService senders;
+    // Only set without virtual threads: the pool that is grown around stuck sends
+    private ThreadPoolExecutor platformSenders;
+    private int stuckSenders;
+    private Counter conflated;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory platformThreads = r -> {
+            Thread t = new Thread(r, "seats-feed-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        Optional<ThreadFactory> virtual = virtualThreads ? VirtualThreads.factory("seats-feed-") : Optional.empty();
+        if (virtual.isPresent()) {
+            senders = Executors.newCachedThreadPool(virtual.get());
+        } else {
+            platformSenders = (ThreadPoolExecutor) Executors.newFixedThreadPool(senderThreads, platformThreads);
+            senders = platformSenders;
+        }
+        Gauge.builder("skybook.seats.feed.subscribers", subscribers, Set::size)
+            .description("Open seat availability streams")
+            .register(meterRegistry);
+        conflated = Counter.builder("skybook.seats.feed.conflated")
+            .description("Seat updates replaced by a newer count before they were sent")
+            .register(meterRegistry);
+        dropped = Counter.builder("skybook.seats.feed.dropped")
+            .description("Seat availability streams dropped because a send took longer than send-timeout-ms")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdown();
+    }
+
+    /**
+     * Open a stream for the given flights; the current counts are sent first
+     * @throws IllegalArgumentException for no flights or more than max-flights
+     * @throws ServiceBusyException when max-subscribers streams are already open
+     */
+    public SseEmitter subscribe(Collection<Long> flightIds) {
+        Set<Long> flights = new LinkedHashSet<>(flightIds);
+        if (flights.isEmpty() || flights.size() > maxFlights) {
+            throw new IllegalArgumentException("Watch between 1 and " + maxFlights + " flights");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("Too many seat availability streams open, please retry", 30);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMinutes * 60_000L);
+        Subscriber subscriber = new Subscriber(emitter, flights);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        flights.forEach(id -> subscribersByFlight.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        // Registered before the snapshot is read, so no change falls between the two;
+        // nothing is sent until the snapshot is in, and a change that arrived
+        // meanwhile is newer than the snapshot, so it wins
+        Map<Long, Flight> current = flightRepository.findAllByIds(flights);
+        for (Long id : flights) {
+            Flight flight = current.get(id);
+            Integer seats = flight != null ? flight.getAvailableSeats() : null;
+            if (seats != null) {
+                lastSeats.putIfAbsent(id, seats);
+            }
+            subscriber.offerIfAbsent(id, update(id, seats != null ? seats : 0, flight == null));
+        }
+        subscriber.ready = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @EventListener
+    public void onFlightSaved(FlightSavedEvent event) {
+        Flight flight = event.getFlight();
+        Set<Subscriber> watching = subscribersByFlight.get(flight.getId());
+        if (watching == null || watching.isEmpty() || flight.getAvailableSeats() == null) {
+            return;
+        }
+        Integer previous = lastSeats.put(flight.getId(), flight.getAvailableSeats());
+        if (flight.getAvailableSeats().equals(previous)) {
+            return;
+        }
+        publish(flight.getId(), update(flight.getId(), flight.getAvailableSeats(), false), watching);
+    }
+
+    @EventListener
+    public void onFlightDeleted(FlightDeletedEvent event) {
+        lastSeats.remove(event.getFlightId());
+        Set<Subscriber> watching = subscribersByFlight.get(event.getFlightId());
+        if (watching != null) {
+            publish(event.getFlightId(), update(event.getFlightId(), 0, true), watching);
+        }
+    }
+
+    /**
+     * Another instance sharing the storage changed flights; its seat changes
+     * never reach our FlightSavedEvents, so compare the watched flights'
+     * stored counts with the last ones pushed
+     */
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (!event.affects(FlightRepository.FLIGHTS_FILE) || subscribersByFlight.isEmpty()) {
+            return;
+        }
+        Set<Long> watched = new HashSet<>(subscribersByFlight.keySet());
+        Map<Long, Flight> current = flightRepository.findAllByIds(watched);
+        for (Long id : watched) {
+            Flight flight = current.get(id);
+            if (flight != null) {
+                onFlightSaved(new FlightSavedEvent(flight));
+            } else if (lastSeats.containsKey(id)) {
+                onFlightDeleted(new FlightDeletedEvent(id));
+            }
+        }
+    }
+
+    /**
+     * Keep idle streams alive through proxies and notice clients that left
+     */
+    @Scheduled(fixedDelayString = "${skybook.seats-feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Drop clients whose current send has been blocked past send-timeout-ms
+     */
+    @Scheduled(fixedDelayString = "${skybook.seats-feed.send-check-ms:1000}")
+    public void dropStuckSubscribers() {
+        long limitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.markStuck(limitNanos)) {
+                dropped.increment();
+                unsubscribe(subscriber);
+                resizeSenders(1);
+                System.err.println("Warning: Dropped a seat availability stream; a send took over " + sendTimeoutMs + "ms");
+            }
+        }
+    }
+
+    /**
+     * Keep sender-threads free threads while some are stuck in a send
+     */
+    private synchronized void resizeSenders(int stuckDelta) {
+        if (platformSenders == null) {
+            return;
+        }
+        stuckSenders += stuckDelta;
+        int size = senderThreads + Math.min(stuckSenders, maxStuckSenders);
+        if (stuckDelta > 0 && stuckSenders > maxStuckSenders) {
+            System.err.println("❌ " + stuckSenders + " seat feed sends stuck, over skybook.seats-feed.max-stuck-senders");
+        }
+        if (size > platformSenders.getMaximumPoolSize()) {
+            platformSenders.setMaximumPoolSize(size);
+            platformSenders.setCorePoolSize(size);
+        } else if (size < platformSenders.getCorePoolSize()) {
+            platformSenders.setCorePoolSize(size);
+            platformSenders.setMaximumPoolSize(size);
+        }
+    }
+
+    private void publish(Long flightId, Map<String, Object> update, Set<Subscriber> watching) {
+        for (Subscriber subscriber : watching) {
+            if (subscriber.offer(flightId, update)) {
+                conflated.increment();
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.claimSend()) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                // Shutting down
+                subscriber.sending = false;
+            }
+        }
+    }
+
+    /**
+     * Send everything pending, then release the send slot; loops if more
+     * arrived while sending so no update is left behind
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            List<Map<String, Object>> batch = subscriber.takePending();
+            boolean heartbeat = subscriber.heartbeatDue;
+            subscriber.heartbeatDue = false;
+            try {
+                for (Map<String, Object> update : batch) {
+                    send(subscriber, SseEmitter.event().name("seats").data(update));
+                }
+                if (heartbeat && batch.isEmpty()) {
+                    send(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, or was too slow and has been dropped
+                subscriber.emitter.completeWithError(e);
+                unsubscribe(subscriber);
+                return;
+            }
+            if (subscriber.releaseSend()) {
+                return;
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.startSend();
+        boolean wasStuck;
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            wasStuck = subscriber.endSend();
+            if (wasStuck) {
+                resizeSenders(-1);
+            }
+        }
+        if (wasStuck) {
+            throw new IOException("Send took longer than " + sendTimeoutMs + "ms");
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long id : subscriber.flights) {
+            subscribersByFlight.computeIfPresent(id, (key, watching) -> {
+                watching.remove(subscriber);
+                return watching.isEmpty() ? null : watching;
+            });
+            if (!subscribersByFlight.containsKey(id)) {
+                lastSeats.remove(id);
+            }
+        }
+    }
+
+    private static Map<String, Object> update(Long flightId, int availableSeats, boolean removed) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("flightId", flightId);
+        update.put("availableSeats", availableSeats);
+        if (removed) {
+            update.put("removed", true);
+        }
+        return update;
+    }
+
+    /**
+     * Subscriber - one SSE stream; pending holds at most one update per flight
+     */
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> flights;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Map<String, Object>> pending = new LinkedHashMap<>();
+        private volatile boolean ready;
+        private volatile boolean sending;
+        private volatile boolean heartbeatDue;
+        // Guarded by lock: when the current send began (0 = not sending), and whether it was given up on
+        private long sendStartedNanos;
+        private boolean stuck;
+
+        Subscriber(SseEmitter emitter, Set<Long> flights) {
+            this.emitter = emitter;
+            this.flights = flights;
+        }
+
+        /**
+         * @return true if an unsent update for the flight was replaced
+         */
+        boolean offer(Long flightId, Map<String, Object> update) {
+            lock.lock();
+            try {
+                return pending.put(flightId, update) != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offerIfAbsent(Long flightId, Map<String, Object> update) {
+            lock.lock();
+            try {
+                pending.putIfAbsent(flightId, update);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Map<String, Object>> takePending() {
+            lock.lock();
+            try {
+                List<Map<String, Object>> batch = new ArrayList<>(pending.values());
+                pending.clear();
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void startSend() {
+            lock.lock();
+            try {
+                sendStartedNanos = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the watchdog gave up on this send while it was blocked
+         */
+        boolean endSend() {
+            lock.lock();
+            try {
+                sendStartedNanos = 0;
+                return stuck;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the current send has run past the limit; only once per subscriber
+         */
+        boolean markStuck(long limitNanos) {
+            lock.lock();
+            try {
+                if (stuck || sendStartedNanos == 0 || System.nanoTime() - sendStartedNanos < limitNanos) {
+                    return false;
+                }
+                stuck = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the caller now owns the single send slot
+         */
+        boolean claimSend() {
+            lock.lock();
+            try {
+                if (!ready || sending || (pending.isEmpty() && !heartbeatDue)) {
+                    return false;
+                }
+                sending = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the slot was released, false if more work arrived meanwhile
+         */
+        boolean releaseSend() {
+            lock.lock();
+            try {
+                if (!pending.isEmpty()) {
+                    return false;
+                }
+                sending = false;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.skybook.service;
+
+import com.skybook.model.Flight;
+import com.skybook.util.HashedTimingWheel;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SeatHold - seats set aside on a flight while a booking is being paid for
+ * Ends exactly once: confirmed, released, or expired by the timing wheel.
+ */
+public class SeatHold {
+
+    public enum State { ACTIVE, CONFIRMED, RELEASED, EXPIRED }
+
+    private final long id;
+    private final Long flightId;
+    private final int seats;
+    private final AtomicReference<State> state = new AtomicReference<>(State.ACTIVE);
+    private volatile Flight flight;
+    private volatile HashedTimingWheel.Timeout expiry;
+
+    SeatHold(long id, Flight flight, int seats) {
+        this.id = id;
+        this.flightId = flight.getId();
+        this.flight = flight;
+        this.seats = seats;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * The flight as last read - after confirm() this reflects the decremented seats
+     */
+    public Flight getFlight() {
+        return flight;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    void setFlight(Flight flight) {
+        this.flight = flight;
+    }
+
+    void setExpiry(HashedTimingWheel.Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    boolean finish(State outcome) {
+        if (!state.compareAndSet(State.ACTIVE, outcome)) {
+            return false;
+        }
+        HashedTimingWheel.Timeout timeout = expiry;
+        if (timeout != null && outcome != State.EXPIRED) {
+            timeout.cancel();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,202 @@
+package com.skybook.service;
+
+import com.skybook.model.Flight;
+import com.skybook.repository.FlightRepository;
+import com.skybook.util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * SeatHoldService - two-phase seat reservation
+ * A booking first holds seats (counted against availability in memory),
+ * then confirms once payment succeeds or releases them on failure.
+ * Abandoned holds are expired by a hashed timing wheel: O(1) to schedule
+ * and cancel, with one timer thread no matter how many holds exist.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatHoldService {
+
+    private final FlightRepository flightRepository;
+    private final FileStorageService fileStorageService;
+    private final Map<Long, FlightHolds> holdsByFlight = new ConcurrentHashMap<>();
+    private final AtomicLong holdIds = new AtomicLong();
+
+    @Value("${skybook.seat-hold.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${skybook.seat-hold.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${skybook.seat-hold.wheel-size:1024}")
+    private int wheelSize;
+
+    private HashedTimingWheel timingWheel;
+
+    @PostConstruct
+    public void init() {
+        timingWheel = new HashedTimingWheel("seat-hold-expiry", tickMs, TimeUnit.MILLISECONDS, wheelSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+    }
+
+    /**
+     * Hold seats on a flight, or empty if fewer than that many are free
+     */
+    public Optional<SeatHold> hold(Long flightId, int seats) {
+        FlightHolds holds = holdsByFlight.computeIfAbsent(flightId, id -> new FlightHolds());
+        holds.lock.lock();
+        try {
+            // Re-read under the lock so confirmed bookings are always accounted for
+            Optional<Flight> flightOpt = flightRepository.findById(flightId);
+            if (flightOpt.isEmpty()) {
+                return Optional.empty();
+            }
+            Flight flight = flightOpt.get();
+            int free = (flight.getAvailableSeats() != null ? flight.getAvailableSeats() : 0) - holds.heldSeats;
+            if (free < seats) {
+                return Optional.empty();
+            }
+            holds.heldSeats += seats;
+
+            SeatHold hold = new SeatHold(holdIds.incrementAndGet(), flight, seats);
+            hold.setExpiry(timingWheel.schedule(() -> expire(hold), ttlSeconds, TimeUnit.SECONDS));
+            return Optional.of(hold);
+        } finally {
+            holds.lock.unlock();
+        }
+    }
+
+    /**
+     * Turn the hold into sold seats and persist the flight.
+     * @return false if the hold already expired or was released, or the seats are gone
+     */
+    public boolean confirm(SeatHold hold) {
+        return confirm(hold, () -> { });
+    }
+
+    /**
+     * Confirm the hold and run alsoWrite in the same unit of work, so the seat
+     * count and whatever the booking writes are committed together.
+     * The flight lock is taken before the storage lock, as hold() does.
+     */
+    public boolean confirm(SeatHold hold, Runnable alsoWrite) {
+        FlightHolds holds = holdsByFlight.get(hold.getFlightId());
+        holds.lock.lock();
+        try {
+            if (!hold.finish(SeatHold.State.CONFIRMED)) {
+                return false;
+            }
+            holds.heldSeats -= hold.getSeats();
+            return fileStorageService.inUnitOfWork(() -> {
+                Flight flight = flightRepository.findById(hold.getFlightId()).orElse(hold.getFlight());
+                // Holds are per instance: another one sharing the storage may have sold these seats
+                if (flight.getAvailableSeats() < hold.getSeats()) {
+                    return false;
+                }
+                flight.setAvailableSeats(flight.getAvailableSeats() - hold.getSeats());
+                flightRepository.save(flight);
+                hold.setFlight(flight);
+                alsoWrite.run();
+                return true;
+            });
+        } finally {
+            holds.lock.unlock();
+        }
+    }
+
+    public void release(SeatHold hold) {
+        if (hold.finish(SeatHold.State.RELEASED)) {
+            unhold(hold);
+        }
+    }
+
+    /**
+     * Put previously sold seats back (e.g. a cancelled booking)
+     */
+    public Optional<Flight> returnSeats(Long flightId, int seats) {
+        FlightHolds holds = holdsByFlight.computeIfAbsent(flightId, id -> new FlightHolds());
+        holds.lock.lock();
+        try {
+            return fileStorageService.inUnitOfWork(() -> addSeats(flightId, seats));
+        } finally {
+            holds.lock.unlock();
+        }
+    }
+
+    /**
+     * Run release in a unit of work under the flight's lock and return the
+     * seats in the same commit, only if it returns true. release re-reads
+     * what it frees there, so two callers can't both give the seats back.
+     * @return whether the seats were returned
+     */
+    public boolean returnSeats(Long flightId, int seats, BooleanSupplier release) {
+        FlightHolds holds = holdsByFlight.computeIfAbsent(flightId, id -> new FlightHolds());
+        holds.lock.lock();
+        try {
+            return fileStorageService.inUnitOfWork(() -> {
+                if (!release.getAsBoolean()) {
+                    return false;
+                }
+                addSeats(flightId, seats);
+                return true;
+            });
+        } finally {
+            holds.lock.unlock();
+        }
+    }
+
+    private Optional<Flight> addSeats(Long flightId, int seats) {
+        Optional<Flight> flightOpt = flightRepository.findById(flightId);
+        flightOpt.ifPresent(flight -> {
+            flight.setAvailableSeats(flight.getAvailableSeats() + seats);
+            flightRepository.save(flight);
+        });
+        return flightOpt;
+    }
+
+    public int getHeldSeats(Long flightId) {
+        FlightHolds holds = holdsByFlight.get(flightId);
+        return holds != null ? holds.heldSeats : 0;
+    }
+
+    private void expire(SeatHold hold) {
+        if (hold.finish(SeatHold.State.EXPIRED)) {
+            unhold(hold);
+            System.out.println("Seat hold " + hold.getId() + " on flight " + hold.getFlightId() + " expired");
+        }
+    }
+
+    private void unhold(SeatHold hold) {
+        FlightHolds holds = holdsByFlight.get(hold.getFlightId());
+        holds.lock.lock();
+        try {
+            holds.heldSeats -= hold.getSeats();
+        } finally {
+            holds.lock.unlock();
+        }
+    }
+
+    /**
+     * Per-flight lock and held-seat count. ReentrantLock rather than
+     * synchronized because the lock is held across file I/O.
+     */
+    private static class FlightHolds {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int heldSeats;
+    }
+}
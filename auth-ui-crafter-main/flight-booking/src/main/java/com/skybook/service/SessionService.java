@@ -0,0 +1,222 @@
+package com.skybook.service;
+
+import com.skybook.event.StorageChangedEvent;
+import com.skybook.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionService - opaque session tokens kept in memory
+ * Resolving a token is a single map lookup; users.json is never read.
+ * Only SHA-256 digests of tokens are stored, so the optional
+ * sessions.json snapshot cannot be replayed as credentials.
+ */
+@Service
+@RequiredArgsConstructor
+public class SessionService {
+
+    private static final String SESSIONS_FILE = "sessions";
+    private static final Logger log = LoggerFactory.getLogger(SessionService.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final FileStorageService fileStorageService;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Value("${skybook.session.ttl-minutes:120}")
+    private long ttlMinutes;
+
+    @Value("${skybook.session.persistence.enabled:false}")
+    private boolean persistenceEnabled;
+
+    // Lets existing clients keep sending ?email= until they move to tokens.
+    // Anyone can claim any email this way, so it is off unless asked for.
+    @Value("${skybook.session.allow-email-fallback:false}")
+    private boolean emailFallbackAllowed;
+
+    private volatile boolean dirty = false;
+    // Token hashes in sessions.json as of our last read or write, to tell a
+    // logout on another instance sharing the storage from a login of ours not yet persisted
+    private final Set<String> storedTokenHashes = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        if (!persistenceEnabled) {
+            return;
+        }
+        mergeStored();
+        System.out.println("✅ Restored " + sessions.size() + " sessions");
+    }
+
+    /**
+     * Another instance persisted its sessions: adopt its logins and drop the
+     * sessions it logged out
+     */
+    @EventListener
+    public void onStorageChanged(StorageChangedEvent event) {
+        if (persistenceEnabled && event.affects(SESSIONS_FILE)) {
+            mergeStored();
+        }
+    }
+
+    /**
+     * Issue a new session for the user and return the raw token (only the caller ever sees it)
+     */
+    public String createSession(User user) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(hash(token), user.getId(), user.getEmail(), user.getUserRole(),
+                System.currentTimeMillis(), expiryFromNow());
+        sessions.put(session.getTokenHash(), session);
+        dirty = true;
+        return token;
+    }
+
+    public Optional<Session> resolve(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        Session session = sessions.get(key);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.getExpiresAt() <= System.currentTimeMillis()) {
+            sessions.remove(key, session);
+            dirty = true;
+            return Optional.empty();
+        }
+        // Sliding expiry - active users stay logged in
+        session.setExpiresAt(expiryFromNow());
+        return Optional.of(session);
+    }
+
+    /**
+     * Resolve a session from an "Authorization: Bearer <token>" header value
+     */
+    public Optional<Session> resolveAuthorization(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        return resolve(authorization.substring(BEARER_PREFIX.length()).trim());
+    }
+
+    /**
+     * Email of the caller: from the session token, or the legacy email parameter if still allowed
+     */
+    public Optional<String> resolveCallerEmail(String authorization, String email) {
+        Optional<Session> session = resolveAuthorization(authorization);
+        if (session.isPresent()) {
+            return Optional.of(session.get().getEmail());
+        }
+        if (emailFallbackAllowed && email != null && !email.isBlank()) {
+            log.warn("Unauthenticated caller acting as {} via the email parameter"
+                + " (skybook.session.allow-email-fallback is deprecated)", email);
+            return Optional.of(email);
+        }
+        return Optional.empty();
+    }
+
+    public boolean invalidate(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        boolean removed = sessions.remove(hash(token)) != null;
+        if (removed) {
+            dirty = true;
+        }
+        return removed;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelayString = "${skybook.session.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        if (sessions.values().removeIf(session -> session.getExpiresAt() <= now)) {
+            dirty = true;
+        }
+        persist();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    private void persist() {
+        if (!persistenceEnabled || !dirty) {
+            return;
+        }
+        dirty = false;
+        List<Session> snapshot = new ArrayList<>(sessions.values());
+        fileStorageService.save(SESSIONS_FILE, snapshot);
+        storedTokenHashes.clear();
+        snapshot.forEach(session -> storedTokenHashes.add(session.getTokenHash()));
+    }
+
+    private void mergeStored() {
+        long now = System.currentTimeMillis();
+        Map<String, Session> stored = new HashMap<>();
+        for (Session session : fileStorageService.loadList(SESSIONS_FILE, Session.class)) {
+            if (session.getExpiresAt() > now) {
+                stored.put(session.getTokenHash(), session);
+            }
+        }
+        for (String tokenHash : storedTokenHashes) {
+            if (!stored.containsKey(tokenHash)) {
+                sessions.remove(tokenHash);
+            }
+        }
+        stored.forEach(sessions::putIfAbsent);
+        storedTokenHashes.clear();
+        storedTokenHashes.addAll(stored.keySet());
+    }
+
+    private long expiryFromNow() {
+        return System.currentTimeMillis() + ttlMinutes * 60_000L;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Session {
+        private String tokenHash;
+        private Long userId;
+        private String email;
+        private String role;
+        private long createdAt;
+        private volatile long expiresAt;
+    }
+}
@@ -0,0 +1,92 @@
+package com.skybook.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * SharedStorageWatcher - notices commits by other instances sharing the storage directory
+ * A WatchService on the directory reacts to _versions.json being replaced;
+ * the scheduled poll is the fallback where watch events come late or not
+ * at all (network file systems, some container mounts). Either way the
+ * check is one small file read, done by FileStorageService, which then
+ * publishes a StorageChangedEvent for whatever moved. Only runs with
+ * skybook.storage.shared.
+ */
+@Service
+@RequiredArgsConstructor
+public class SharedStorageWatcher {
+
+    private final FileStorageService fileStorageService;
+
+    @Value("${skybook.storage.path:./data}")
+    private String storagePath;
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void start() {
+        if (!fileStorageService.isShared()) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Paths.get(storagePath).register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not watch " + storagePath + ", relying on polling: " + e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watch, "storage-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("✅ Watching " + storagePath + " for commits by other instances");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${skybook.storage.shared-poll-ms:1000}")
+    public void poll() {
+        if (fileStorageService.isShared()) {
+            fileStorageService.pollExternalChanges();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean stampsReplaced = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || FileStorageService.VERSION_STAMPS_FILE.equals(String.valueOf(event.context()))) {
+                        stampsReplaced = true;
+                    }
+                }
+                key.reset();
+                if (stampsReplaced) {
+                    try {
+                        fileStorageService.pollExternalChanges();
+                    } catch (RuntimeException e) {
+                        System.err.println("Warning: Could not check for external changes: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+}
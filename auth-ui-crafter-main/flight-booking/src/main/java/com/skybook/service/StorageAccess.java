@@ -0,0 +1,154 @@
+package com.skybook.service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * StorageAccess - counts the storage work done on behalf of one HTTP request
+ * StorageAccessFilter binds a Usage to the request thread; FileStorageService
+ * reports every file read and commit into whichever Usage is bound. Work
+ * continued on another thread (payment callbacks) is attributed with callWith().
+ * Reads also note their first com.skybook call site, so an N+1 shows up as
+ * one site with a large count.
+ */
+public final class StorageAccess {
+
+    private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private StorageAccess() {
+    }
+
+    /**
+     * Bind usage to this thread
+     * @return the previously bound usage, to restore afterwards
+     */
+    public static Usage bind(Usage usage) {
+        Usage previous = CURRENT.get();
+        if (usage != null) {
+            CURRENT.set(usage);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * @return the usage bound to this thread, or null outside a tracked request
+     */
+    public static Usage current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run work on this thread as part of usage (e.g. a payment callback)
+     */
+    public static <T> T callWith(Usage usage, Supplier<T> work) {
+        Usage previous = bind(usage);
+        try {
+            return work.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    static void recordRead(String fileName, long bytes, int records) {
+        Usage usage = CURRENT.get();
+        if (usage == null) {
+            return;
+        }
+        usage.reads.increment();
+        usage.readBytes.add(bytes);
+        usage.records.add(records);
+        usage.callSites.computeIfAbsent(callSite(fileName), key -> new LongAdder()).increment();
+    }
+
+    static void recordWrite(int files, long bytes) {
+        Usage usage = CURRENT.get();
+        if (usage == null) {
+            return;
+        }
+        usage.commits.increment();
+        usage.filesWritten.add(files);
+        usage.writtenBytes.add(bytes);
+    }
+
+    private static String callSite(String fileName) {
+        String site = STACK_WALKER.walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith("com.skybook.")
+                && !frame.getClassName().contains("$$")
+                && !frame.getClassName().equals(FileStorageService.class.getName())
+                && !frame.getClassName().equals(StorageAccess.class.getName()))
+            .findFirst()
+            .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+            .orElse("?"));
+        return site + " (" + fileName + ")";
+    }
+
+    /**
+     * Usage - storage work of one request, safe to update from several threads
+     */
+    public static final class Usage {
+        private final long startedNanos = System.nanoTime();
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder readBytes = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder filesWritten = new LongAdder();
+        private final LongAdder writtenBytes = new LongAdder();
+        private final Map<String, LongAdder> callSites = new ConcurrentHashMap<>();
+
+        public long getReads() {
+            return reads.sum();
+        }
+
+        public long getReadBytes() {
+            return readBytes.sum();
+        }
+
+        public long getRecords() {
+            return records.sum();
+        }
+
+        public long getCommits() {
+            return commits.sum();
+        }
+
+        public long getFilesWritten() {
+            return filesWritten.sum();
+        }
+
+        public long getWrittenBytes() {
+            return writtenBytes.sum();
+        }
+
+        public long getElapsedMillis() {
+            return (System.nanoTime() - startedNanos) / 1_000_000;
+        }
+
+        /**
+         * e.g. reads=3; records=120; readBytes=45678; commits=1; writtenBytes=2048
+         */
+        public String toHeaderValue() {
+            return "reads=" + getReads() + "; records=" + getRecords() + "; readBytes=" + getReadBytes()
+                + "; commits=" + getCommits() + "; writtenBytes=" + getWrittenBytes();
+        }
+
+        /**
+         * The busiest read call sites, most reads first
+         */
+        public String topCallSites(int limit) {
+            return callSites.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> entry.getKey() + " x" + entry.getValue())
+                .collect(Collectors.joining(", "));
+        }
+    }
+}
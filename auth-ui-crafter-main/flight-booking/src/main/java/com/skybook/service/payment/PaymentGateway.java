@@ -0,0 +1,20 @@
+package com.skybook.service.payment;
+
+import com.skybook.model.payment.Payment;
+
+/**
+ * PaymentGateway - the external provider that actually moves money
+ * Calls are blocking and may be slow; PaymentProcessor keeps them off request threads.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Charge the payment method; true when the provider approved it
+     */
+    boolean charge(Payment payment, Double amount);
+
+    /**
+     * Return money for a charge the booking could not use
+     */
+    void refund(Payment payment, Double amount);
+}
@@ -0,0 +1,130 @@
+package com.skybook.service.payment;
+
+import com.skybook.jfr.PaymentEvent;
+import com.skybook.model.payment.Payment;
+import com.skybook.util.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PaymentProcessor - runs gateway calls asynchronously behind bulkheads
+ * Every payment method gets its own small bounded pool, so a slow UPI
+ * provider can't take card payments (or Tomcat threads) down with it.
+ * Calls that wait past the timeout complete as TIMED_OUT; if the provider
+ * approves them afterwards the charge is refunded.
+ * With spring.threads.virtual.enabled the bulkhead threads are virtual:
+ * the pool and queue still bound each method, but a blocked gateway call
+ * no longer holds a platform thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentProcessor {
+
+    private final PaymentGateway paymentGateway;
+    private final Map<String, ThreadPoolExecutor> bulkheads = new ConcurrentHashMap<>();
+
+    @Value("${skybook.payment.bulkhead.max-concurrent:16}")
+    private int maxConcurrent;
+
+    @Value("${skybook.payment.bulkhead.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${skybook.payment.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            System.err.println("❌ spring.threads.virtual.enabled needs Java 21+ - payment bulkheads stay on platform threads");
+        } else if (virtualThreads) {
+            System.out.println("✅ Payment bulkheads running on virtual threads");
+        }
+    }
+
+    public CompletableFuture<PaymentResult> process(Payment payment, Double amount) {
+        ThreadPoolExecutor bulkhead = bulkheads.computeIfAbsent(payment.getPaymentMethod(), this::newBulkhead);
+        PaymentEvent event = new PaymentEvent();
+        event.begin();
+
+        CompletableFuture<Boolean> charge;
+        try {
+            charge = CompletableFuture.supplyAsync(() -> paymentGateway.charge(payment, amount), bulkhead);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(record(event, payment, amount, PaymentResult.rejected()));
+        }
+
+        CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        charge.whenComplete((approved, error) -> {
+            PaymentResult outcome;
+            if (error != null) {
+                outcome = PaymentResult.error(error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+            } else if (Boolean.TRUE.equals(approved)) {
+                outcome = PaymentResult.approved(payment.getTransactionId());
+            } else {
+                outcome = PaymentResult.declined();
+            }
+            // complete() loses to an earlier timeout - the caller has already given up on this charge
+            if (!result.complete(outcome) && outcome.isApproved()) {
+                paymentGateway.refund(payment, amount);
+            }
+        });
+        return result.completeOnTimeout(PaymentResult.timedOut(), timeoutMs, TimeUnit.MILLISECONDS)
+            .thenApply(outcome -> record(event, payment, amount, outcome));
+    }
+
+    /**
+     * Refund a charge whose booking could not be completed
+     */
+    public void refund(Payment payment, Double amount) {
+        ThreadPoolExecutor bulkhead = bulkheads.computeIfAbsent(payment.getPaymentMethod(), this::newBulkhead);
+        try {
+            bulkhead.execute(() -> paymentGateway.refund(payment, amount));
+        } catch (RejectedExecutionException e) {
+            // Never drop a refund because the bulkhead is full
+            paymentGateway.refund(payment, amount);
+        }
+    }
+
+    private static PaymentResult record(PaymentEvent event, Payment payment, Double amount, PaymentResult outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.paymentMethod = payment.getPaymentMethod();
+            event.amount = amount != null ? amount : 0.0;
+            event.status = outcome.getStatus().name();
+            event.commit();
+        }
+        return outcome;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    private ThreadPoolExecutor newBulkhead(String paymentMethod) {
+        AtomicInteger counter = new AtomicInteger();
+        String prefix = "payment-" + paymentMethod.toLowerCase() + "-";
+        ThreadFactory platformThreads = r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadFactory threads = virtualThreads
+            ? VirtualThreads.factory(prefix).orElse(platformThreads)
+            : platformThreads;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threads, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
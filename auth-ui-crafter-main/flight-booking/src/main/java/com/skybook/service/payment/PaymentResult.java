@@ -0,0 +1,49 @@
+package com.skybook.service.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * PaymentResult - outcome of an asynchronous payment attempt
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentResult {
+
+    public enum Status { APPROVED, DECLINED, TIMED_OUT, REJECTED, ERROR }
+
+    private final Status status;
+    private final String transactionId;
+    private final String message;
+
+    public static PaymentResult approved(String transactionId) {
+        return new PaymentResult(Status.APPROVED, transactionId, "Payment approved");
+    }
+
+    public static PaymentResult declined() {
+        return new PaymentResult(Status.DECLINED, null, "Payment failed");
+    }
+
+    public static PaymentResult timedOut() {
+        return new PaymentResult(Status.TIMED_OUT, null, "Payment provider timed out, please retry");
+    }
+
+    public static PaymentResult rejected() {
+        return new PaymentResult(Status.REJECTED, null, "Payment service busy, please retry");
+    }
+
+    public static PaymentResult error(String message) {
+        return new PaymentResult(Status.ERROR, null, "Payment failed: " + message);
+    }
+
+    public boolean isApproved() {
+        return status == Status.APPROVED;
+    }
+
+    /**
+     * True when nothing was charged and the same request can safely be tried again
+     */
+    public boolean isRetryable() {
+        return status == Status.TIMED_OUT || status == Status.REJECTED;
+    }
+}
@@ -0,0 +1,62 @@
+package com.skybook.service.payment;
+
+import com.skybook.model.payment.Payment;
+import com.skybook.service.IdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * StubPaymentGateway - local stand-in for a real provider
+ * Adds configurable latency and random declines so timeouts and
+ * bulkheads can be exercised without a real gateway.
+ */
+@Service
+@RequiredArgsConstructor
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final IdGenerator idGenerator;
+
+    @Value("${skybook.payment.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${skybook.payment.stub.jitter-ms:0}")
+    private long jitterMs;
+
+    @Value("${skybook.payment.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public boolean charge(Payment payment, Double amount) {
+        simulateLatency();
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            System.out.println("Stub gateway declined " + payment.getPaymentMethod() + " payment of ₹" + amount);
+            return false;
+        }
+        if (!payment.processPayment(amount)) {
+            return false;
+        }
+        payment.setTransactionId(idGenerator.nextTransactionId(payment.getTransactionPrefix()));
+        return true;
+    }
+
+    @Override
+    public void refund(Payment payment, Double amount) {
+        simulateLatency();
+        System.out.println("Refunded ₹" + amount + " for transaction " + payment.getTransactionId());
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.skybook.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * RingBuffer - Disruptor-style pre-allocated event ring with batching consumers
+ * Publishers claim a sequence with one atomic increment, fill the slot in
+ * place and mark it published; no locks and no allocation per event. Every
+ * consumer runs on its own thread, tracks its own sequence and handles all
+ * published events it finds in one batch. A publisher that would lap the
+ * slowest consumer waits, so the ring is also the backpressure bound.
+ */
+public class RingBuffer<E> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final int shift;
+    // Round (sequence >>> shift) of the event last published into each slot
+    private final AtomicIntegerArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<ConsumerThread> consumers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public RingBuffer(int size, Supplier<E> factory) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Add a consumer; all consumers must be added before start()
+     */
+    public void addConsumer(String name, Handler<E> handler) {
+        consumers.add(new ConsumerThread(name, handler));
+    }
+
+    public void start() {
+        consumers.forEach(consumer -> consumer.thread.start());
+    }
+
+    /**
+     * Fill the next slot in place and make it visible to consumers
+     */
+    public void publish(Consumer<E> translator) {
+        if (!running) {
+            throw new IllegalStateException("Ring buffer is shut down");
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        // Don't overwrite a slot a consumer hasn't handled yet
+        while (wrapPoint > minimumConsumerSequence()) {
+            if (!running) {
+                throw new IllegalStateException("Ring buffer is shut down");
+            }
+            LockSupport.parkNanos(1_000);
+        }
+        translator.accept(slot(sequence));
+        // A volatile write, so a consumer about to park either sees it or is seen waiting
+        published.set(index(sequence), (int) (sequence >>> shift));
+        for (ConsumerThread consumer : consumers) {
+            if (consumer.waiting) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Events published but not yet handled by the named consumer
+     */
+    public long getBacklog(String name) {
+        for (ConsumerThread consumer : consumers) {
+            if (consumer.name.equals(name)) {
+                return Math.max(0, claimed.get() - consumer.sequence.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stop the consumers once they have handled everything published so far,
+     * or when the timeout runs out
+     * @return true if every consumer caught up
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long target = claimed.get();
+        while (minimumConsumerSequence() < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        boolean drained = minimumConsumerSequence() >= target;
+        running = false;
+        consumers.forEach(consumer -> LockSupport.unpark(consumer.thread));
+        return drained;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E slot(long sequence) {
+        return (E) slots[index(sequence)];
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get(index(sequence)) == (int) (sequence >>> shift);
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (ConsumerThread consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum == Long.MAX_VALUE ? claimed.get() : minimum;
+    }
+
+    /**
+     * Handler - endOfBatch lets a consumer flush work it accumulated over the batch
+     */
+    public interface Handler<E> {
+        void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    private class ConsumerThread implements Runnable {
+        private final String name;
+        private final Handler<E> handler;
+        private final Thread thread;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private volatile boolean waiting;
+
+        ConsumerThread(String name, Handler<E> handler) {
+            this.name = name;
+            this.handler = handler;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int idleSpins = 0;
+            while (running) {
+                // Published events can be out of order across publishers - stop at the first gap
+                long available = next - 1;
+                while (available < claimed.get() && isPublished(available + 1)) {
+                    available++;
+                }
+                if (available < next) {
+                    if (++idleSpins < 100) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    waiting = true;
+                    if (!isPublished(next) && running) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                    waiting = false;
+                    continue;
+                }
+                idleSpins = 0;
+                for (long s = next; s <= available; s++) {
+                    try {
+                        handler.onEvent(slot(s), s, s == available);
+                    } catch (Exception e) {
+                        System.err.println("❌ " + name + " failed on event " + s + ": " + e.getMessage());
+                    }
+                }
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import {
   useSidebar,
 } from "@/components/ui/sidebar";
 import { useToast } from "@/hooks/use-toast";
+import { authAPI, AUTH_TOKEN_KEY } from "@/services/api";
 
 const menuItems = [
   { title: "Dashboard", url: "/dashboard", icon: Home },
@@ -27,6 +28,8 @@ export function AppSidebar() {
   const { toast } = useToast();
 
   const handleLogout = () => {
+    authAPI.logout().catch(() => {});
+    localStorage.removeItem(AUTH_TOKEN_KEY);
     localStorage.removeItem("userLocation");
     toast({
       title: "Logged out",
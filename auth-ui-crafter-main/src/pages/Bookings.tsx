@@ -12,6 +12,7 @@ import {
 import { useState, useEffect } from "react";
 import { useNavigate } from "react-router-dom";
 import { useToast } from "@/hooks/use-toast";
+import { bookingAPI } from "@/services/api";
 
 const Bookings = () => {
   const [bookings, setBookings] = useState<any[]>([]);
@@ -34,8 +35,7 @@ const Bookings = () => {
         return;
       }
 
-      const response = await fetch(`http://localhost:8080/api/bookings?email=${email}`);
-      const data = await response.json();
+      const data = await bookingAPI.getUserBookings();
       setBookings(data);
     } catch (error) {
       console.error("Failed to fetch bookings:", error);
@@ -52,7 +52,7 @@ const LocationSelection = () => {
       
       if (userEmail) {
         // Update location in backend
-        await userAPI.updateLocation(userEmail, selectedLocation);
+        await userAPI.updateLocation(selectedLocation);
       }
       
       // Save to localStorage
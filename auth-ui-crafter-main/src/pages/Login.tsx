@@ -8,7 +8,7 @@ import { useForm } from "react-hook-form";
 import { zodResolver } from "@hookform/resolvers/zod";
 import * as z from "zod";
 import { useToast } from "@/hooks/use-toast";
-import { authAPI } from "@/services/api";
+import { authAPI, AUTH_TOKEN_KEY } from "@/services/api";
 
 const loginSchema = z.object({
   email: z.string().email({ message: "Please enter a valid email" }),
@@ -39,6 +39,7 @@ const Login = () => {
         // Store user data
         localStorage.setItem("user", JSON.stringify(response.user));
         localStorage.setItem("userEmail", response.user.email);
+        localStorage.setItem(AUTH_TOKEN_KEY, response.token);
         
         toast({
           title: "Login successful!",
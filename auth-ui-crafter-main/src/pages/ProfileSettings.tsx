@@ -28,7 +28,7 @@ const ProfileSettings = () => {
     try {
       const userEmail = localStorage.getItem("userEmail");
       if (userEmail) {
-        const data = await userAPI.getProfile(userEmail);
+        const data = await userAPI.getProfile();
         setProfile(data);
         setFormData({
           firstName: data.firstName || "",
@@ -48,7 +48,7 @@ const ProfileSettings = () => {
     try {
       const userEmail = localStorage.getItem("userEmail");
       if (userEmail) {
-        const response = await userAPI.updateProfile(userEmail, formData);
+        const response = await userAPI.updateProfile(formData);
         
         if (response.success) {
           toast({
@@ -8,7 +8,7 @@ import { useForm } from "react-hook-form";
 import { zodResolver } from "@hookform/resolvers/zod";
 import * as z from "zod";
 import { useToast } from "@/hooks/use-toast";
-import { authAPI } from "@/services/api";
+import { authAPI, AUTH_TOKEN_KEY } from "@/services/api";
 
 const registerSchema = z
   .object({
@@ -46,6 +46,7 @@ const Register = () => {
         // Store user data
         localStorage.setItem("user", JSON.stringify(response.user));
         localStorage.setItem("userEmail", response.user.email);
+        localStorage.setItem(AUTH_TOKEN_KEY, response.token);
         
         toast({
           title: "Account created!",
@@ -5,6 +5,7 @@ import { Label } from "@/components/ui/label";
 import { RadioGroup, RadioGroupItem } from "@/components/ui/radio-group";
 import { LogOut, Palette } from "lucide-react";
 import { useToast } from "@/hooks/use-toast";
+import { authAPI, AUTH_TOKEN_KEY } from "@/services/api";
 import { useNavigate } from "react-router-dom";
 import { useState, useEffect } from "react";
 
@@ -30,6 +31,8 @@ const Settings = () => {
   };
 
   const handleLogout = () => {
+    authAPI.logout().catch(() => {});
+    localStorage.removeItem(AUTH_TOKEN_KEY);
     localStorage.removeItem("userLocation");
     toast({
       title: "Logged out",
@@ -1,19 +1,31 @@
 const API_BASE_URL = 'http://localhost:8080/api';
 
+// Session token issued on login/register, sent as "Authorization: Bearer <token>"
+export const AUTH_TOKEN_KEY = 'authToken';
+
+export const authHeaders = () => {
+  const token = localStorage.getItem(AUTH_TOKEN_KEY);
+  return token ? { Authorization: `Bearer ${token}` } : {};
+};
+
 // Helper function for API calls
 const apiCall = async (endpoint, options = {}) => {
   const url = `${API_BASE_URL}${endpoint}`;
   
   const config = {
+    ...options,
     headers: {
       'Content-Type': 'application/json',
+      ...authHeaders(),
       ...options.headers,
     },
-    ...options,
   };
 
   try {
     const response = await fetch(url, config);
+    if (response.status === 401) {
+      throw new Error('Not signed in');
+    }
     const data = await response.json();
     return data;
   } catch (error) {
@@ -64,8 +76,8 @@ export const bookingAPI = {
       body: JSON.stringify(bookingData),
     }),
 
-  getUserBookings: (email) => 
-    apiCall(`/bookings?email=${email}`),
+  getUserBookings: () => 
+    apiCall('/bookings'),
 
   getBookingById: (id) => 
     apiCall(`/bookings/${id}`),
@@ -78,17 +90,17 @@ export const bookingAPI = {
 
 // User APIs
 export const userAPI = {
-  getProfile: (email) => 
-    apiCall(`/users/profile?email=${email}`),
+  getProfile: () => 
+    apiCall('/users/profile'),
 
-  updateProfile: (email, updates) => 
-    apiCall(`/users/profile?email=${email}`, {
+  updateProfile: (updates) => 
+    apiCall('/users/profile', {
       method: 'PUT',
       body: JSON.stringify(updates),
     }),
 
-  updateLocation: (email, location) => 
-    apiCall(`/users/location?email=${email}`, {
+  updateLocation: (location) => 
+    apiCall('/users/location', {
       method: 'PUT',
       body: JSON.stringify({ location }),
     }),